@@ -0,0 +1,265 @@
+package com.thingmagic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe object pool without locks.
+ * Idle objects are kept in a bounded array queue (each slot has a sequence number, so producers and consumers
+ * claim slots by CAS), returns do not allocate. Optional per-thread caches serve borrow and return
+ * of the same thread without touching the shared queue.
+ * <p>
+ * Debug mode records where each outstanding object was borrowed and rejects objects returned twice.
+ */
+public class ConcurrentObjectPool<T> {
+    /**
+     * Default values.
+     */
+    public static final int DEFAULT_CAPACITY = 1024,
+            DEFAULT_THREAD_CACHE_SIZE = 0;
+
+    /**
+     * Factory which created object instances.
+     */
+    private final PooledObjectFactory<T> factory;
+
+    /**
+     * Idle objects. Slot sequence equals the position of the next offer to the slot when it is free,
+     * and the position + 1 when it holds an object.
+     */
+    private final Object[] idleObjects;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong offerPosition = new AtomicLong(0);
+    private final AtomicLong pollPosition = new AtomicLong(0);
+
+    /**
+     * Idle objects of each thread, or null if thread caches are disabled.
+     */
+    private final ThreadLocal<ThreadCache> threadCaches;
+    private final int threadCacheSize;
+
+    /**
+     * Borrow sites of outstanding objects, or null if debug mode is disabled.
+     */
+    private final Map<T, Throwable> borrowSites;
+
+    private final LongAdder createCount = new LongAdder();
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder returnCount = new LongAdder();
+    /**
+     * Objects dropped because the pool was full.
+     */
+    private final LongAdder discardCount = new LongAdder();
+
+    public ConcurrentObjectPool(final PooledObjectFactory<T> factory) {
+        this(factory, DEFAULT_CAPACITY, DEFAULT_THREAD_CACHE_SIZE, false);
+    }
+
+    /**
+     * @param capacity        max count of idle objects, rounded up to a power of two. Extra objects are dropped.
+     * @param threadCacheSize max count of idle objects kept by each thread, 0 to disable thread caches.
+     * @param debug           record borrow sites to find leaks.
+     */
+    public ConcurrentObjectPool(final PooledObjectFactory<T> factory, final int capacity,
+                                final int threadCacheSize, final boolean debug) {
+        if (capacity <= 0 || threadCacheSize < 0) {
+            throw new IllegalArgumentException("Wrong pool capacity");
+        }
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.factory = factory;
+        this.idleObjects = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.threadCacheSize = threadCacheSize;
+        this.threadCaches = threadCacheSize > 0 ? ThreadLocal.withInitial(() -> new ThreadCache(threadCacheSize)) : null;
+        this.borrowSites = debug ? Collections.synchronizedMap(new IdentityHashMap<>()) : null;
+    }
+
+    /**
+     * @return object from the pool or create new one.
+     */
+    public T borrowObject() {
+        T o = null;
+        if (threadCaches != null) {
+            o = threadCaches.get().poll();
+        }
+        if (o == null) {
+            o = poll();
+        }
+        if (o == null) {
+            o = factory.makeObject();
+            createCount.increment();
+        }
+
+        factory.activateObject(o);
+        borrowCount.increment();
+        if (borrowSites != null) {
+            borrowSites.put(o, new Throwable("Borrowed here"));
+        }
+        return o;
+    }
+
+    /**
+     * Return object to the pool. Object is dropped if the pool is full.
+     */
+    public void returnObject(final T o) {
+        if (o == null) {
+            return;
+        }
+        if (borrowSites != null && borrowSites.remove(o) == null) {
+            new IllegalStateException("Object was returned twice or was not borrowed from the pool: " + o)
+                    .printStackTrace();
+            return;
+        }
+        returnCount.increment();
+
+        factory.passivateObject(o);
+        if (threadCaches != null && threadCaches.get().offer(o)) {
+            return;
+        }
+        if (!offer(o)) {
+            discardCount.increment();
+        }
+    }
+
+    public long getCreatedCount() {
+        return createCount.sum();
+    }
+
+    public long getBorrowedCount() {
+        return borrowCount.sum();
+    }
+
+    public long getReturnedCount() {
+        return returnCount.sum();
+    }
+
+    public long getDiscardedCount() {
+        return discardCount.sum();
+    }
+
+    /**
+     * @return count of borrowed objects which were not returned yet.
+     */
+    public long getOutstandingCount() {
+        // Returns are counted after borrows, read them first to not go below 0.
+        final long returned = returnCount.sum();
+        return borrowCount.sum() - returned;
+    }
+
+    public boolean isDebug() {
+        return borrowSites != null;
+    }
+
+    /**
+     * Debug mode: borrow sites of outstanding objects.
+     * Objects which are kept on purpose, like ring buffer slots, are included.
+     *
+     * @return stack traces of borrow calls, empty if debug mode is disabled.
+     */
+    public List<Throwable> getOutstandingBorrowSites() {
+        if (borrowSites == null) {
+            return Collections.emptyList();
+        }
+        synchronized (borrowSites) {
+            return new ArrayList<>(borrowSites.values());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrentObjectPool{created=" + getCreatedCount()
+                + ", borrowed=" + getBorrowedCount()
+                + ", returned=" + getReturnedCount()
+                + ", outstanding=" + getOutstandingCount()
+                + ", discarded=" + getDiscardedCount()
+                + ", threadCacheSize=" + threadCacheSize + '}';
+    }
+
+    private boolean offer(final T o) {
+        long position = offerPosition.get();
+        while (true) {
+            final int index = (int) position & mask;
+            final long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (offerPosition.compareAndSet(position, position + 1)) {
+                    idleObjects[index] = o;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = offerPosition.get();
+            } else if (difference < 0) {
+                // Slot is not taken yet since the previous round, queue is full.
+                return false;
+            } else {
+                position = offerPosition.get();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T poll() {
+        long position = pollPosition.get();
+        while (true) {
+            final int index = (int) position & mask;
+            final long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (pollPosition.compareAndSet(position, position + 1)) {
+                    final T o = (T) idleObjects[index];
+                    idleObjects[index] = null;
+                    sequences.lazySet(index, position + mask + 1);
+                    return o;
+                }
+                position = pollPosition.get();
+            } else if (difference < 0) {
+                // Slot is not filled yet, queue is empty.
+                return null;
+            } else {
+                position = pollPosition.get();
+            }
+        }
+    }
+
+    /**
+     * Idle objects of one thread.
+     */
+    private final class ThreadCache {
+        private final Object[] objects;
+        private int count = 0;
+
+        private ThreadCache(final int size) {
+            this.objects = new Object[size];
+        }
+
+        @SuppressWarnings("unchecked")
+        private T poll() {
+            if (count == 0) {
+                return null;
+            }
+            final T o = (T) objects[--count];
+            objects[count] = null;
+            return o;
+        }
+
+        private boolean offer(final T o) {
+            if (count == objects.length) {
+                return false;
+            }
+            objects[count++] = o;
+            return true;
+        }
+    }
+}
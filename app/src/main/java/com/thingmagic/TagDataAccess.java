@@ -0,0 +1,27 @@
+package com.thingmagic;
+
+/**
+ * Access to tag data without copies. {@link TagData#epcBytes()} and {@link TagReadData#getData()}
+ * clone the array on each call.
+ */
+public final class TagDataAccess {
+
+    private TagDataAccess() {
+    }
+
+    /**
+     * @return EPC bytes of the tag.
+     * IMPORTANT: The array is owned by the tag data and must not be modified.
+     */
+    public static byte[] epcBytes(final TagData tagData) {
+        return tagData.epc;
+    }
+
+    /**
+     * @return data read from the tag memory.
+     * IMPORTANT: The array is owned by the tag read and must not be modified.
+     */
+    public static byte[] data(final TagReadData tagReadData) {
+        return tagReadData.data;
+    }
+}
@@ -1,5 +1,10 @@
 package me.pantre.app.bean.peripheral;
 
+import android.os.Handler;
+import android.widget.Toast;
+
+import java.io.File;
+import java.io.IOException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -7,21 +12,31 @@ import java.util.concurrent.TimeUnit;
 
 import co.bytetechnology.thm.MainActivity;
 import me.pantre.app.peripheral.DragonfruitThingMagicWrapper;
+import me.pantre.app.peripheral.GpioBackend;
 import me.pantre.app.peripheral.GpioContstants;
+import me.pantre.app.peripheral.GpioReaderHost;
 import me.pantre.app.peripheral.GpioShell;
+import me.pantre.app.peripheral.SysfsGpio;
 import me.pantre.app.peripheral.ThingMagicDriver;
 
-public class DragonFruitFacade {
+/**
+ * Dragonfruit kit. Shows reader state and keeps driver files in the app.
+ */
+public class DragonFruitFacade extends GpioReaderHost {
 
     public final MainActivity mainActivity;
-    private final GpioShell gpioShell;
 
     public DragonFruitFacade(MainActivity mainActivity) {
-        this.mainActivity = mainActivity;
-        gpioShell = new GpioShell();
+        this(mainActivity, createGpioBackend());
     }
 
-    private static final boolean IS_LOGGING_ENABLED = true;
+    /**
+     * Use given GPIO backend, e.g. simulated mux board.
+     */
+    public DragonFruitFacade(MainActivity mainActivity, GpioBackend gpioBackend) {
+        super(gpioBackend, null);
+        this.mainActivity = mainActivity;
+    }
 
     /**
      * Kit name.
@@ -62,7 +77,7 @@ public class DragonFruitFacade {
             System.out.printf("Connecting ThingMagic. Attempt #%d", ++thingMagicConnectionRetryCounter);
             System.out.println();
 
-            thingMagicDriver.connect(mainActivity);
+            thingMagicDriver.connect();
 
             System.out.printf("ThingMagic isConnected? %s", thingMagicDriver.isConnected());
             System.out.println();
@@ -73,33 +88,16 @@ public class DragonFruitFacade {
         }, thingMagicConnectTimeout, thingMagicConnectTimeout, TimeUnit.MILLISECONDS);
     }
 
-    /**
-     * Choose a shelf using muxs.
-     */
-    public void setShelf(final int shelf) {
-        if (IS_LOGGING_ENABLED) System.out.printf("Set shelf to %d", shelf);
-        System.out.println();
+    @Override
+    public void onReaderConnected() {
+        // Show a toast.
+        final Handler h = new Handler(mainActivity.getMainLooper());
+        h.post(() -> Toast.makeText(mainActivity, "PD3 ready", Toast.LENGTH_LONG).show());
+    }
 
-        switch (shelf) {
-            case 1:
-                gpioShell.setGpioValue(GpioContstants.GPIO_FIFTH_CHIP, GpioContstants.GPIO_RF_SWITCH_ONE, 0);
-                gpioShell.setGpioValue(GpioContstants.GPIO_SECOND_CHIP, GpioContstants.GPIO_RF_SWITCH_TWO, 0);
-                break;
-            case 2:
-                gpioShell.setGpioValue(GpioContstants.GPIO_FIFTH_CHIP, GpioContstants.GPIO_RF_SWITCH_ONE, 0);
-                gpioShell.setGpioValue(GpioContstants.GPIO_SECOND_CHIP, GpioContstants.GPIO_RF_SWITCH_TWO, 1);
-                break;
-            case 3:
-                gpioShell.setGpioValue(GpioContstants.GPIO_FIFTH_CHIP, GpioContstants.GPIO_RF_SWITCH_ONE, 1);
-                gpioShell.setGpioValue(GpioContstants.GPIO_SECOND_CHIP, GpioContstants.GPIO_RF_SWITCH_TWO, 0);
-                break;
-            case 4:
-                gpioShell.setGpioValue(GpioContstants.GPIO_FIFTH_CHIP, GpioContstants.GPIO_RF_SWITCH_ONE, 1);
-                gpioShell.setGpioValue(GpioContstants.GPIO_SECOND_CHIP, GpioContstants.GPIO_RF_SWITCH_TWO, 1);
-                break;
-            default:
-                break;
-        }
+    @Override
+    public File getFilesDir() {
+        return mainActivity.getFilesDir();
     }
 
     /**
@@ -107,8 +105,26 @@ public class DragonFruitFacade {
      */
     private void initGpioPins() {
         //Restart ThingMagic
-        gpioShell.setGpioValue(GpioContstants.GPIO_THIRD_CHIP, GpioContstants.GPIO_RFID_ENABLE_LINE, 1);
-        gpioShell.setGpioValue(GpioContstants.GPIO_THIRD_CHIP, GpioContstants.GPIO_RFID_ENABLE_LINE, 0);
+        gpioBackend.setGpioValue(GpioContstants.GPIO_THIRD_CHIP, GpioContstants.GPIO_RFID_ENABLE_LINE, 1);
+        gpioBackend.setGpioValue(GpioContstants.GPIO_THIRD_CHIP, GpioContstants.GPIO_RFID_ENABLE_LINE, 0);
+    }
+
+    /**
+     * Use sysfs GPIO with persistent handles if lines can be opened, else gpioset through su shell.
+     */
+    private static GpioBackend createGpioBackend() {
+        final SysfsGpio sysfsGpio = new SysfsGpio(new File(SysfsGpio.DEFAULT_SYSFS_ROOT));
+        try {
+            sysfsGpio.open(RF_SWITCH_CHIPS, RF_SWITCH_LINES);
+            sysfsGpio.open(new int[]{GpioContstants.GPIO_THIRD_CHIP}, new int[]{GpioContstants.GPIO_RFID_ENABLE_LINE});
+            System.out.println("GPIO backend: sysfs");
+            return sysfsGpio;
+        } catch (IOException e) {
+            System.out.printf("Sysfs GPIO is not available: %s. GPIO backend: shell", e.getMessage());
+            System.out.println();
+            sysfsGpio.close();
+            return new GpioShell();
+        }
     }
 
 }
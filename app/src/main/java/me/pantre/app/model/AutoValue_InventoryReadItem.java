@@ -5,7 +5,7 @@ import androidx.annotation.NonNull;
 
 final class AutoValue_InventoryReadItem extends InventoryReadItem {
 
-    private final String epc;
+    private final Epc epc;
     private final int power;
     private final int TMAntenna;
     private final int realAntenna;
@@ -20,7 +20,7 @@ final class AutoValue_InventoryReadItem extends InventoryReadItem {
     private final boolean temperature;
 
     private AutoValue_InventoryReadItem(
-            String epc,
+            Epc epc,
             int power,
             int TMAntenna,
             int realAntenna,
@@ -49,7 +49,7 @@ final class AutoValue_InventoryReadItem extends InventoryReadItem {
     }
 
     @Override
-    public String getEpc() {
+    public Epc getEpc() {
         return epc;
     }
 
@@ -190,7 +190,7 @@ final class AutoValue_InventoryReadItem extends InventoryReadItem {
     }
 
     static final class Builder extends InventoryReadItem.Builder {
-        private String epc;
+        private Epc epc;
         private Integer power;
         private Integer TMAntenna;
         private Integer realAntenna;
@@ -208,7 +208,7 @@ final class AutoValue_InventoryReadItem extends InventoryReadItem {
         }
 
         @Override
-        public InventoryReadItem.Builder setEpc(String epc) {
+        public InventoryReadItem.Builder setEpc(Epc epc) {
             this.epc = epc;
             return this;
         }
@@ -0,0 +1,248 @@
+package me.pantre.app.model;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Immutable EPC. Up to 128 bits are kept in two longs, so equality, hashing and prefix match do not touch arrays.
+ * Hex string is rendered only when it is needed for display.
+ */
+public final class Epc {
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * Count of bytes kept in primitives.
+     */
+    private static final int PRIMITIVE_BYTES = 2 * Long.BYTES;
+
+    /**
+     * Bytes 0-7 and 8-15 in big endian, missing bytes are zero.
+     */
+    private final long hi;
+    private final long lo;
+    /**
+     * Length in bytes.
+     */
+    private final int length;
+    /**
+     * Bytes after the first 16 bytes or null. Common EPCs are 96 bit.
+     */
+    private final byte[] tail;
+
+    /**
+     * Hex string, rendered lazily.
+     */
+    private String hex;
+
+    private Epc(final long hi, final long lo, final int length, final byte[] tail) {
+        this.hi = hi;
+        this.lo = lo;
+        this.length = length;
+        this.tail = tail;
+    }
+
+    /**
+     * @return EPC of the bytes. Bytes are copied.
+     */
+    public static Epc of(final byte[] bytes) {
+        return of(bytes, 0, bytes.length);
+    }
+
+    public static Epc of(final byte[] bytes, final int offset, final int length) {
+        long hi = 0;
+        long lo = 0;
+        for (int i = 0; i < Math.min(length, PRIMITIVE_BYTES); i++) {
+            final long b = bytes[offset + i] & 0xFFL;
+            if (i < Long.BYTES) {
+                hi |= b << (Byte.SIZE * (Long.BYTES - 1 - i));
+            } else {
+                lo |= b << (Byte.SIZE * (PRIMITIVE_BYTES - 1 - i));
+            }
+        }
+        final byte[] tail = length > PRIMITIVE_BYTES
+                ? Arrays.copyOfRange(bytes, offset + PRIMITIVE_BYTES, offset + length) : null;
+        return new Epc(hi, lo, length, tail);
+    }
+
+    /**
+     * Parse hex string.
+     *
+     * @throws IllegalArgumentException if it is not a hex string of whole bytes.
+     */
+    public static Epc fromHex(final CharSequence hex) {
+        if (hex.length() % 2 != 0) {
+            throw new IllegalArgumentException("Odd length of EPC hex string: " + hex);
+        }
+        final int length = hex.length() / 2;
+        long hi = 0;
+        long lo = 0;
+        final byte[] tail = length > PRIMITIVE_BYTES ? new byte[length - PRIMITIVE_BYTES] : null;
+        for (int i = 0; i < length; i++) {
+            final long b = (hexDigit(hex, 2 * i) << 4) | hexDigit(hex, 2 * i + 1);
+            if (i < Long.BYTES) {
+                hi |= b << (Byte.SIZE * (Long.BYTES - 1 - i));
+            } else if (i < PRIMITIVE_BYTES) {
+                lo |= b << (Byte.SIZE * (PRIMITIVE_BYTES - 1 - i));
+            } else {
+                tail[i - PRIMITIVE_BYTES] = (byte) b;
+            }
+        }
+        return new Epc(hi, lo, length, tail);
+    }
+
+    /**
+     * @return EPC of up to 16 bytes kept in primitives.
+     */
+    static Epc of(final long hi, final long lo, final int length) {
+        if (length > PRIMITIVE_BYTES) {
+            throw new IllegalArgumentException("EPC is longer than " + PRIMITIVE_BYTES + " bytes");
+        }
+        return new Epc(hi, lo, length, null);
+    }
+
+    /**
+     * @return true if all bytes are kept in primitives.
+     */
+    boolean isPrimitive() {
+        return tail == null;
+    }
+
+    long getHi() {
+        return hi;
+    }
+
+    long getLo() {
+        return lo;
+    }
+
+    /**
+     * @return length in bytes.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return byte by index.
+     */
+    public byte getByte(final int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + ", length " + length);
+        }
+        if (index < Long.BYTES) {
+            return (byte) (hi >>> (Byte.SIZE * (Long.BYTES - 1 - index)));
+        }
+        if (index < PRIMITIVE_BYTES) {
+            return (byte) (lo >>> (Byte.SIZE * (PRIMITIVE_BYTES - 1 - index)));
+        }
+        return tail[index - PRIMITIVE_BYTES];
+    }
+
+    /**
+     * @return new array with EPC bytes.
+     */
+    public byte[] toBytes() {
+        final byte[] result = new byte[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = getByte(i);
+        }
+        return result;
+    }
+
+    /**
+     * @return true if EPC starts with bytes of the prefix.
+     */
+    public boolean startsWith(final Epc prefix) {
+        if (prefix.length > length) {
+            return false;
+        }
+        final int n = Math.min(prefix.length, PRIMITIVE_BYTES);
+        if ((hi & prefixMask(n)) != prefix.hi || (lo & prefixMask(n - Long.BYTES)) != prefix.lo) {
+            return false;
+        }
+        for (int i = PRIMITIVE_BYTES; i < prefix.length; i++) {
+            if (tail[i - PRIMITIVE_BYTES] != prefix.tail[i - PRIMITIVE_BYTES]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Append hex string without creating it.
+     */
+    public StringBuilder appendHex(final StringBuilder sb) {
+        for (int i = 0; i < length; i++) {
+            final int b = getByte(i);
+            sb.append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+        }
+        return sb;
+    }
+
+    /**
+     * @return upper case hex string like ThingMagic epcString().
+     */
+    @NonNull
+    @Override
+    public String toString() {
+        String result = hex;
+        if (result == null) {
+            final char[] chars = new char[2 * length];
+            for (int i = 0; i < length; i++) {
+                final int b = getByte(i);
+                chars[2 * i] = HEX_DIGITS[(b >> 4) & 0xF];
+                chars[2 * i + 1] = HEX_DIGITS[b & 0xF];
+            }
+            // Benign race like String.hashCode(), all threads render the same value.
+            result = new String(chars);
+            hex = result;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof Epc)) {
+            return false;
+        }
+        final Epc that = (Epc) o;
+        return hi == that.hi && lo == that.lo && length == that.length && Arrays.equals(tail, that.tail);
+    }
+
+    @Override
+    public int hashCode() {
+        // Random EPC bits are mostly in the low bytes, mix both words.
+        long h = hi * 0x9E3779B97F4A7C15L + lo;
+        h ^= h >>> 32;
+        int result = (int) h * 31 + length;
+        if (tail != null) {
+            result = result * 31 + Arrays.hashCode(tail);
+        }
+        return result;
+    }
+
+    /**
+     * @return mask of the first bytesCount bytes of a long.
+     */
+    private static long prefixMask(final int bytesCount) {
+        if (bytesCount <= 0) {
+            return 0;
+        }
+        if (bytesCount >= Long.BYTES) {
+            return -1L;
+        }
+        return ~(-1L >>> (Byte.SIZE * bytesCount));
+    }
+
+    private static long hexDigit(final CharSequence hex, final int index) {
+        final int digit = Character.digit(hex.charAt(index), 16);
+        if (digit < 0) {
+            throw new IllegalArgumentException("Wrong EPC hex string: " + hex);
+        }
+        return digit;
+    }
+}
@@ -0,0 +1,87 @@
+package me.pantre.app.model;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Change of one tag between two versions of the inventory.
+ */
+public final class InventoryChange {
+
+    public enum Type {
+        /**
+         * Tag is found on a shelf where it was not before.
+         */
+        ADDED,
+        /**
+         * Tag is not found on its shelf anymore.
+         */
+        REMOVED,
+        /**
+         * Tag changed shelf or real antenna.
+         */
+        MOVED,
+        /**
+         * Tag RSSI changed significantly since the last reported change.
+         */
+        RSSI_CHANGED
+    }
+
+    private final Type type;
+    private final InventoryReadItem item;
+    private final int previousShelf;
+    private final int previousRealAntenna;
+    private final int previousRssi;
+
+    public InventoryChange(final Type type, final InventoryReadItem item,
+                           final int previousShelf, final int previousRealAntenna, final int previousRssi) {
+        this.type = type;
+        this.item = item;
+        this.previousShelf = previousShelf;
+        this.previousRealAntenna = previousRealAntenna;
+        this.previousRssi = previousRssi;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Epc getEpc() {
+        return item.getEpc();
+    }
+
+    /**
+     * @return current item, or the last one for a removed tag.
+     */
+    public InventoryReadItem getItem() {
+        return item;
+    }
+
+    /**
+     * @return shelf before the change, 0 for an added tag.
+     */
+    public int getPreviousShelf() {
+        return previousShelf;
+    }
+
+    /**
+     * @return real antenna before the change, 0 for an added tag.
+     */
+    public int getPreviousRealAntenna() {
+        return previousRealAntenna;
+    }
+
+    /**
+     * @return RSSI of the last reported change, 0 for an added tag.
+     */
+    public int getPreviousRssi() {
+        return previousRssi;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return type + " " + item.getEpc() + " shelf " + previousShelf + "->" + item.getShelf()
+                + ", antenna " + previousRealAntenna + "->" + item.getRealAntenna()
+                + ", rssi " + previousRssi + "->" + item.getRssi();
+    }
+}
@@ -0,0 +1,34 @@
+package me.pantre.app.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * All changes of the inventory made by one reading cycle.
+ */
+public final class InventoryDelta {
+    private final long version;
+    private final long readingCycleNumber;
+    private final List<InventoryChange> changes;
+
+    public InventoryDelta(final long version, final long readingCycleNumber, final List<InventoryChange> changes) {
+        this.version = version;
+        this.readingCycleNumber = readingCycleNumber;
+        this.changes = Collections.unmodifiableList(changes);
+    }
+
+    /**
+     * @return inventory version which contains the changes, see {@link InventorySnapshot#getVersion()}.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public long getReadingCycleNumber() {
+        return readingCycleNumber;
+    }
+
+    public List<InventoryChange> getChanges() {
+        return changes;
+    }
+}
@@ -31,7 +31,7 @@ public abstract class InventoryReadItem {
 
     }
 
-    public abstract String getEpc();
+    public abstract Epc getEpc();
 
     public abstract int getPower();
 
@@ -68,7 +68,7 @@ public abstract class InventoryReadItem {
      * Builder to build entity.
      */
     public abstract static class Builder {
-        public abstract Builder setEpc(final String epc);
+        public abstract Builder setEpc(final Epc epc);
 
         public abstract Builder setPower(final int power);
 
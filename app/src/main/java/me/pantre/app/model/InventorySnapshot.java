@@ -0,0 +1,38 @@
+package me.pantre.app.model;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Published version of the inventory. Acquired by {@link VersionedInventory#acquire()}.
+ * IMPORTANT: Store is read only and it should be closed soon. Writer does not reuse the store of an open snapshot,
+ * it copies the inventory into a new one.
+ */
+public final class InventorySnapshot implements AutoCloseable {
+    private final InventoryVersion version;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    InventorySnapshot(final InventoryVersion version) {
+        this.version = version;
+    }
+
+    /**
+     * @return monotonically increasing version of the inventory.
+     */
+    public long getVersion() {
+        return version.version;
+    }
+
+    public InventoryStore getStore() {
+        return version.store;
+    }
+
+    /**
+     * Release the snapshot. Next calls do nothing.
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            version.readers.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,565 @@
+package me.pantre.app.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import me.pantre.app.peripheral.model.TagReadData;
+
+/**
+ * Inventory of read tags as parallel primitive arrays with open addressing EPC index.
+ * Tags are updated in place, so merge of a tag read does not create objects.
+ * Rows are dense, removed row is replaced by the last one.
+ * Changed rows are logged, so a copy of the store can be updated by {@link #replayChanges(InventoryStore)}.
+ * <p>
+ * Not thread safe. EPCs up to 128 bit are supported.
+ */
+public class InventoryStore {
+    private static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * Columns by row.
+     */
+    private long[] epcHi;
+    private long[] epcLo;
+    private byte[] epcLength;
+    private int[] power;
+    private byte[] tmAntenna;
+    private byte[] realAntenna;
+    private long[] created;
+    private long[] readingCycleNumber;
+    private int[] rssi;
+    private int[] frequency;
+    private int[] phase;
+    private int[] readCount;
+    private byte[] plan;
+    private byte[] shelf;
+    private boolean[] temperature;
+
+    /**
+     * Open addressing index: row + 1 or 0 for empty slot. Length is a power of two, load is at most 1/2.
+     */
+    private int[] index;
+    private int size = 0;
+
+    /**
+     * Rows changed since {@link #clearChanges()}, each row once.
+     */
+    private int[] changedRows;
+    private boolean[] changed;
+    private int changedCount = 0;
+
+    public InventoryStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public InventoryStore(final int initialCapacity) {
+        allocate(Math.max(1, initialCapacity));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return row of the EPC or -1.
+     */
+    public int indexOf(final Epc epc) {
+        if (!epc.isPrimitive()) {
+            return -1;
+        }
+        final long hi = epc.getHi();
+        final long lo = epc.getLo();
+        final int length = epc.getLength();
+        final int mask = index.length - 1;
+        for (int slot = hash(hi, lo) & mask; ; slot = (slot + 1) & mask) {
+            final int row = index[slot] - 1;
+            if (row < 0) {
+                return -1;
+            }
+            if (epcHi[row] == hi && epcLo[row] == lo && epcLength[row] == length) {
+                return row;
+            }
+        }
+    }
+
+    /**
+     * Add tag read or overwrite row of its EPC, like {@link InventoryReadItem#create}.
+     *
+     * @return row of the tag.
+     */
+    public int put(final TagReadData tagReadData, final int realAntenna, final long readingCycleNumber,
+                   final int readPower, final int plan, final int shelf) {
+        final Epc epc = tagReadData.getEpc();
+        int row = indexOf(epc);
+        if (row < 0) {
+            row = add(epc);
+        }
+        this.power[row] = readPower;
+        this.tmAntenna[row] = (byte) tagReadData.getAntenna();
+        this.realAntenna[row] = (byte) realAntenna;
+        this.created[row] = tagReadData.getTime();
+        this.readingCycleNumber[row] = readingCycleNumber;
+        this.rssi[row] = tagReadData.getRssi();
+        this.frequency[row] = tagReadData.getFrequency();
+        this.phase[row] = tagReadData.getPhase();
+        this.readCount[row] = tagReadData.getReadCount();
+        this.plan[row] = (byte) plan;
+        this.shelf[row] = (byte) shelf;
+        this.temperature[row] = tagReadData.isTemperatureTag();
+        markChanged(row);
+        return row;
+    }
+
+    /**
+     * Remove row. The last row is moved to its place, so rows stay dense.
+     *
+     * @return previous row of the moved tag or -1 if the last row was removed.
+     */
+    public int remove(final int row) {
+        removeIndex(row);
+        final int last = --size;
+        if (row == last) {
+            return -1;
+        }
+        index[findSlot(last)] = row + 1;
+        copyRow(this, last, row);
+        markChanged(row);
+        return last;
+    }
+
+    /**
+     * Release arrays which are mostly unused after removals.
+     */
+    public void compact() {
+        int capacity = epcHi.length;
+        while (capacity > DEFAULT_CAPACITY && size <= capacity / 4) {
+            capacity /= 2;
+        }
+        if (capacity != epcHi.length) {
+            resize(capacity);
+        }
+    }
+
+    /**
+     * @return count of rows the arrays can hold.
+     */
+    public int getCapacity() {
+        return epcHi.length;
+    }
+
+    public void clear() {
+        Arrays.fill(index, 0);
+        size = 0;
+        clearChanges();
+    }
+
+    /**
+     * @return count of rows changed since {@link #clearChanges()}.
+     */
+    public int getChangedCount() {
+        return changedCount;
+    }
+
+    /**
+     * @return row changed since {@link #clearChanges()} by index in order of the first change.
+     */
+    public int getChangedRow(final int index) {
+        return changedRows[index];
+    }
+
+    public void clearChanges() {
+        for (int i = 0; i < changedCount; i++) {
+            changed[changedRows[i]] = false;
+        }
+        changedCount = 0;
+    }
+
+    /**
+     * Apply rows changed in other store. This store should be equal to other store before the changes.
+     */
+    public void replayChanges(final InventoryStore other) {
+        if (epcHi.length != other.epcHi.length) {
+            // Index is rebuilt anyway, rows removed from the end are dropped with it.
+            size = Math.min(size, other.size);
+            resize(other.epcHi.length);
+        }
+        // Rows removed from the end.
+        for (int row = other.size; row < size; row++) {
+            removeIndex(row);
+        }
+        final int keptCount = Math.min(size, other.size);
+        for (int i = 0; i < other.changedCount; i++) {
+            final int row = other.changedRows[i];
+            if (row >= other.size) {
+                continue;
+            }
+            if (row < keptCount) {
+                if (epcHi[row] == other.epcHi[row] && epcLo[row] == other.epcLo[row]
+                        && epcLength[row] == other.epcLength[row]) {
+                    copyRow(other, row, row);
+                    continue;
+                }
+                // Tag was removed and the last one was moved here.
+                removeIndex(row);
+            }
+            copyRow(other, row, row);
+            insertIndex(row);
+        }
+        size = other.size;
+    }
+
+    /**
+     * Make this store a copy of other store. Arrays are reused if they are large enough.
+     */
+    public void copyFrom(final InventoryStore other) {
+        if (epcHi.length != other.epcHi.length) {
+            // Same capacity gives the same index length, index is copied as is.
+            allocate(other.epcHi.length);
+        }
+        final int n = other.size;
+        System.arraycopy(other.epcHi, 0, epcHi, 0, n);
+        System.arraycopy(other.epcLo, 0, epcLo, 0, n);
+        System.arraycopy(other.epcLength, 0, epcLength, 0, n);
+        System.arraycopy(other.power, 0, power, 0, n);
+        System.arraycopy(other.tmAntenna, 0, tmAntenna, 0, n);
+        System.arraycopy(other.realAntenna, 0, realAntenna, 0, n);
+        System.arraycopy(other.created, 0, created, 0, n);
+        System.arraycopy(other.readingCycleNumber, 0, readingCycleNumber, 0, n);
+        System.arraycopy(other.rssi, 0, rssi, 0, n);
+        System.arraycopy(other.frequency, 0, frequency, 0, n);
+        System.arraycopy(other.phase, 0, phase, 0, n);
+        System.arraycopy(other.readCount, 0, readCount, 0, n);
+        System.arraycopy(other.plan, 0, plan, 0, n);
+        System.arraycopy(other.shelf, 0, shelf, 0, n);
+        System.arraycopy(other.temperature, 0, temperature, 0, n);
+        System.arraycopy(other.index, 0, index, 0, index.length);
+        size = n;
+        clearChanges();
+    }
+
+    public Epc getEpc(final int row) {
+        return Epc.of(epcHi[row], epcLo[row], epcLength[row]);
+    }
+
+    public int getPower(final int row) {
+        return power[row];
+    }
+
+    public int getTMAntenna(final int row) {
+        return tmAntenna[row];
+    }
+
+    public int getRealAntenna(final int row) {
+        return realAntenna[row];
+    }
+
+    public long getCreated(final int row) {
+        return created[row];
+    }
+
+    public long getReadingCycleNumber(final int row) {
+        return readingCycleNumber[row];
+    }
+
+    public int getRssi(final int row) {
+        return rssi[row];
+    }
+
+    public int getFrequency(final int row) {
+        return frequency[row];
+    }
+
+    public int getPhase(final int row) {
+        return phase[row];
+    }
+
+    public int getReadCount(final int row) {
+        return readCount[row];
+    }
+
+    public int getPlan(final int row) {
+        return plan[row];
+    }
+
+    public int getShelf(final int row) {
+        return shelf[row];
+    }
+
+    public boolean isTemperature(final int row) {
+        return temperature[row];
+    }
+
+    /**
+     * @return view of the row. It reads the store, so it changes when the row is updated.
+     */
+    public InventoryReadItem view(final int row) {
+        return new ItemView(row);
+    }
+
+    /**
+     * @return immutable item with values of the row.
+     */
+    public InventoryReadItem toItem(final int row) {
+        return InventoryReadItem.builder()
+                .setEpc(getEpc(row))
+                .setPower(power[row])
+                .setTMAntenna(tmAntenna[row])
+                .setRealAntenna(realAntenna[row])
+                .setCreated(created[row])
+                .setReadingCycleNumber(readingCycleNumber[row])
+                .setRssi(rssi[row])
+                .setFrequency(frequency[row])
+                .setPhase(phase[row])
+                .setReadCount(readCount[row])
+                .setTemperature(temperature[row])
+                .setPlan(plan[row])
+                .setShelf(shelf[row])
+                .build();
+    }
+
+    /**
+     * @return map of immutable items.
+     */
+    public Map<Epc, InventoryReadItem> toMap() {
+        final Map<Epc, InventoryReadItem> result = new HashMap<>(size * 2);
+        for (int row = 0; row < size; row++) {
+            final InventoryReadItem item = toItem(row);
+            result.put(item.getEpc(), item);
+        }
+        return result;
+    }
+
+    /**
+     * @return approximate heap used by arrays in bytes.
+     */
+    public long getMemoryUsage() {
+        final long rowBytes = 4L * Long.BYTES + 6L * Integer.BYTES + 7L;
+        return (long) epcHi.length * rowBytes + (long) index.length * Integer.BYTES;
+    }
+
+    private int add(final Epc epc) {
+        if (!epc.isPrimitive()) {
+            throw new IllegalArgumentException("EPC is too long: " + epc);
+        }
+        if (size == epcHi.length) {
+            resize(2 * epcHi.length);
+        }
+        final int row = size++;
+        epcHi[row] = epc.getHi();
+        epcLo[row] = epc.getLo();
+        epcLength[row] = (byte) epc.getLength();
+        insertIndex(row);
+        return row;
+    }
+
+    private void copyRow(final InventoryStore other, final int from, final int to) {
+        epcHi[to] = other.epcHi[from];
+        epcLo[to] = other.epcLo[from];
+        epcLength[to] = other.epcLength[from];
+        power[to] = other.power[from];
+        tmAntenna[to] = other.tmAntenna[from];
+        realAntenna[to] = other.realAntenna[from];
+        created[to] = other.created[from];
+        readingCycleNumber[to] = other.readingCycleNumber[from];
+        rssi[to] = other.rssi[from];
+        frequency[to] = other.frequency[from];
+        phase[to] = other.phase[from];
+        readCount[to] = other.readCount[from];
+        plan[to] = other.plan[from];
+        shelf[to] = other.shelf[from];
+        temperature[to] = other.temperature[from];
+    }
+
+    private void markChanged(final int row) {
+        if (!changed[row]) {
+            changed[row] = true;
+            changedRows[changedCount++] = row;
+        }
+    }
+
+    private void insertIndex(final int row) {
+        final int mask = index.length - 1;
+        int slot = hash(epcHi[row], epcLo[row]) & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = row + 1;
+    }
+
+    /**
+     * @return index slot of the row.
+     */
+    private int findSlot(final int row) {
+        final int mask = index.length - 1;
+        int slot = hash(epcHi[row], epcLo[row]) & mask;
+        while (index[slot] != row + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Remove row from the index. Following slots of the probe chain are shifted back, so no tombstones are needed.
+     */
+    private void removeIndex(final int row) {
+        final int mask = index.length - 1;
+        int hole = findSlot(row);
+        for (int slot = (hole + 1) & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+            final int other = index[slot] - 1;
+            final int home = hash(epcHi[other], epcLo[other]) & mask;
+            // Entry can fill the hole if the hole is between its home slot and its slot.
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                index[hole] = index[slot];
+                hole = slot;
+            }
+        }
+        index[hole] = 0;
+    }
+
+    private void allocate(final int capacity) {
+        epcHi = new long[capacity];
+        epcLo = new long[capacity];
+        epcLength = new byte[capacity];
+        power = new int[capacity];
+        tmAntenna = new byte[capacity];
+        realAntenna = new byte[capacity];
+        created = new long[capacity];
+        readingCycleNumber = new long[capacity];
+        rssi = new int[capacity];
+        frequency = new int[capacity];
+        phase = new int[capacity];
+        readCount = new int[capacity];
+        plan = new byte[capacity];
+        shelf = new byte[capacity];
+        temperature = new boolean[capacity];
+        index = new int[Integer.highestOneBit(Math.max(1, capacity - 1)) * 4];
+        size = 0;
+        changedRows = new int[capacity];
+        changed = new boolean[capacity];
+        changedCount = 0;
+    }
+
+    /**
+     * Change capacity, it should not be less than size.
+     */
+    private void resize(final int capacity) {
+        // Changes of rows which do not fit are dropped, they were removed.
+        int keptCount = 0;
+        for (int i = 0; i < changedCount; i++) {
+            if (changedRows[i] < capacity) {
+                changedRows[keptCount++] = changedRows[i];
+            }
+        }
+        changedCount = keptCount;
+
+        epcHi = Arrays.copyOf(epcHi, capacity);
+        epcLo = Arrays.copyOf(epcLo, capacity);
+        epcLength = Arrays.copyOf(epcLength, capacity);
+        power = Arrays.copyOf(power, capacity);
+        tmAntenna = Arrays.copyOf(tmAntenna, capacity);
+        realAntenna = Arrays.copyOf(realAntenna, capacity);
+        created = Arrays.copyOf(created, capacity);
+        readingCycleNumber = Arrays.copyOf(readingCycleNumber, capacity);
+        rssi = Arrays.copyOf(rssi, capacity);
+        frequency = Arrays.copyOf(frequency, capacity);
+        phase = Arrays.copyOf(phase, capacity);
+        readCount = Arrays.copyOf(readCount, capacity);
+        plan = Arrays.copyOf(plan, capacity);
+        shelf = Arrays.copyOf(shelf, capacity);
+        temperature = Arrays.copyOf(temperature, capacity);
+        changedRows = Arrays.copyOf(changedRows, capacity);
+        changed = Arrays.copyOf(changed, capacity);
+
+        index = new int[Integer.highestOneBit(Math.max(1, capacity - 1)) * 4];
+        for (int row = 0; row < size; row++) {
+            insertIndex(row);
+        }
+    }
+
+    private static int hash(final long hi, final long lo) {
+        long h = hi * 0x9E3779B97F4A7C15L + lo;
+        h = (h ^ (h >>> 32)) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Item which reads values of a row.
+     */
+    private final class ItemView extends InventoryReadItem {
+        private final int row;
+
+        private ItemView(final int row) {
+            this.row = row;
+        }
+
+        @Override
+        public Epc getEpc() {
+            return InventoryStore.this.getEpc(row);
+        }
+
+        @Override
+        public int getPower() {
+            return power[row];
+        }
+
+        @Override
+        public int getTMAntenna() {
+            return tmAntenna[row];
+        }
+
+        @Override
+        public int getRealAntenna() {
+            return realAntenna[row];
+        }
+
+        @Override
+        public long getCreated() {
+            return created[row];
+        }
+
+        @Override
+        public long getReadingCycleNumber() {
+            return readingCycleNumber[row];
+        }
+
+        @Override
+        public int getRssi() {
+            return rssi[row];
+        }
+
+        @Override
+        public int getFrequency() {
+            return frequency[row];
+        }
+
+        @Override
+        public int getPhase() {
+            return phase[row];
+        }
+
+        @Override
+        public int getReadCount() {
+            return readCount[row];
+        }
+
+        @Override
+        public int getPlan() {
+            return plan[row];
+        }
+
+        @Override
+        public int getShelf() {
+            return shelf[row];
+        }
+
+        @Override
+        public boolean isTemperature() {
+            return temperature[row];
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package me.pantre.app.model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Store of one inventory version with count of its readers. Used by {@link VersionedInventory}.
+ */
+final class InventoryVersion {
+    final InventoryStore store;
+    /**
+     * Count of open snapshots of the version.
+     */
+    final AtomicInteger readers = new AtomicInteger(0);
+    /**
+     * Written before the version is published.
+     */
+    long version = 0;
+
+    InventoryVersion(final InventoryStore store) {
+        this.store = store;
+    }
+}
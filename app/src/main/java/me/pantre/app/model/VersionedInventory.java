@@ -0,0 +1,96 @@
+package me.pantre.app.model;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Double buffered inventory. Writer builds the next version in the back store and publishes it
+ * by one reference swap, readers get a consistent store without locks.
+ * <p>
+ * Back store is brought up to date by replay of the rows changed in the last version,
+ * so the cost of a version depends on count of changed tags, not on the inventory size.
+ * <p>
+ * If a reader still holds the back store, the writer does not wait for it. It copies the current version
+ * into a new back store and leaves the old one to the reader.
+ * <p>
+ * One writer thread, any count of reader threads.
+ */
+public class VersionedInventory {
+    private final AtomicReference<InventoryVersion> current;
+    /**
+     * Back buffer. Used by writer only.
+     */
+    private InventoryVersion next;
+    /**
+     * Count of back stores left to readers which did not close their snapshots in time.
+     */
+    private long pinnedCount = 0;
+
+    public VersionedInventory() {
+        this.current = new AtomicReference<>(new InventoryVersion(new InventoryStore()));
+        this.next = new InventoryVersion(new InventoryStore());
+    }
+
+    /**
+     * Reader: get the current version.
+     * IMPORTANT: Snapshot should be closed.
+     */
+    public InventorySnapshot acquire() {
+        while (true) {
+            final InventoryVersion version = current.get();
+            version.readers.incrementAndGet();
+            // Writer could swap the version before it was marked as used.
+            if (current.get() == version) {
+                return new InventorySnapshot(version);
+            }
+            version.readers.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return version of the current snapshot.
+     */
+    public long getVersion() {
+        return current.get().version;
+    }
+
+    /**
+     * Writer: start the next version. Never waits for readers.
+     * Each call should be followed by {@link #publish()}.
+     *
+     * @return store equal to the current version, changes are tracked.
+     */
+    public InventoryStore beginUpdate() {
+        final InventoryStore currentStore = current.get().store;
+        if (next.readers.get() > 0) {
+            // Previous version is still read, the reader keeps its store.
+            next = new InventoryVersion(new InventoryStore(currentStore.getCapacity()));
+            next.store.copyFrom(currentStore);
+            pinnedCount++;
+        } else {
+            next.store.replayChanges(currentStore);
+        }
+        next.store.clearChanges();
+        return next.store;
+    }
+
+    /**
+     * @return count of back stores left to readers, a growing count means that snapshots are not closed.
+     */
+    public long getPinnedCount() {
+        return pinnedCount;
+    }
+
+    /**
+     * Writer: publish store returned by {@link #beginUpdate()}.
+     *
+     * @return published version.
+     */
+    public long publish() {
+        final InventoryVersion previous = current.get();
+        final InventoryVersion published = next;
+        published.version = previous.version + 1;
+        current.set(published);
+        next = previous;
+        return published.version;
+    }
+}
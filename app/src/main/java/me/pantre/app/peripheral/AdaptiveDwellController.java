@@ -0,0 +1,91 @@
+package me.pantre.app.peripheral;
+
+/**
+ * Decide how long to read a plan by discovery rate of new EPCs.
+ * Read stops when no new EPC was found for the quiet window, and it is extended up to the max dwell
+ * while new EPCs keep coming.
+ */
+public class AdaptiveDwellController {
+    /**
+     * Default values (in ms).
+     */
+    public static final long DEFAULT_MIN_DWELL = 100,
+            DEFAULT_QUIET_WINDOW = 150,
+            DEFAULT_MAX_DWELL = 1000,
+            DEFAULT_POLL_INTERVAL = 25;
+
+    /**
+     * Minimal read time of one plan, so a slow start does not stop the read.
+     */
+    private final long minDwell;
+    /**
+     * Stop reading if no new EPC was found during this time.
+     */
+    private final long quietWindow;
+    /**
+     * Maximum read time of one plan.
+     */
+    private final long maxDwell;
+    /**
+     * How often to check for new EPCs.
+     */
+    private final long pollInterval;
+
+    private long startTime;
+    private long lastNewEpcTime;
+    private int plansCount;
+
+    public AdaptiveDwellController() {
+        this(DEFAULT_MIN_DWELL, DEFAULT_QUIET_WINDOW, DEFAULT_MAX_DWELL, DEFAULT_POLL_INTERVAL);
+    }
+
+    public AdaptiveDwellController(final long minDwell, final long quietWindow, final long maxDwell, final long pollInterval) {
+        if (minDwell > maxDwell) {
+            throw new IllegalArgumentException("minDwell is greater than maxDwell");
+        }
+        this.minDwell = minDwell;
+        this.quietWindow = quietWindow;
+        this.maxDwell = maxDwell;
+        this.pollInterval = pollInterval;
+    }
+
+    /**
+     * Start read.
+     *
+     * @param plansCount count of plans read together, min and max dwell are scaled by it.
+     */
+    public void start(final long now, final int plansCount) {
+        this.startTime = now;
+        this.lastNewEpcTime = now;
+        this.plansCount = Math.max(1, plansCount);
+    }
+
+    /**
+     * New EPC was found.
+     */
+    public void onNewEpc(final long now) {
+        lastNewEpcTime = now;
+    }
+
+    /**
+     * @return true if read should be stopped.
+     */
+    public boolean shouldStop(final long now) {
+        final long elapsed = now - startTime;
+        if (elapsed >= maxDwell * plansCount) {
+            return true;
+        }
+        return elapsed >= minDwell * plansCount && now - lastNewEpcTime >= quietWindow;
+    }
+
+    /**
+     * @return time since the read start.
+     */
+    public long getElapsed(final long now) {
+        return now - startTime;
+    }
+
+    public long getPollInterval() {
+        return pollInterval;
+    }
+}
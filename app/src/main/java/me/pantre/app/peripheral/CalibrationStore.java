@@ -0,0 +1,252 @@
+package me.pantre.app.peripheral;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import me.pantre.app.model.Epc;
+import me.pantre.app.peripheral.model.TagTemperatureReadData;
+
+/**
+ * Calibration of sensor tags kept in a memory-mapped file, so restarts do not read calibration over the air again.
+ * Calibration is factory-fixed per EPC. Records have fixed size, the EPC index is built from them when the file
+ * is opened. When the store is full, the least recently used record is replaced.
+ * <p>
+ * Checksum of a record is written last and checked on open, so records torn by a crash are dropped.
+ * Calibration keeps its own CRC as read from the tag. EPCs longer than 128 bits are not stored.
+ * <p>
+ * Not thread safe.
+ */
+public class CalibrationStore implements Closeable {
+    /**
+     * Default count of records, 40 KB file.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+    /**
+     * Size of calibration data with CRC, as read from user bank words 8h..Bh.
+     */
+    public static final int CALIBRATION_DATA_SIZE = 8;
+
+    private static final int MAGIC = 0x5043414C;
+    private static final int VERSION = 1;
+    /**
+     * Header: magic, version, capacity.
+     */
+    private static final int HEADER_SIZE = 16;
+    /**
+     * Record: EPC bytes, last use stamp, calibration data, EPC length (0 for a free record), checksum.
+     * Checksum covers all fields except last use stamp, so a use does not rewrite it.
+     */
+    private static final int RECORD_SIZE = 40;
+    private static final int EPC_OFFSET = 0,
+            LAST_USE_OFFSET = 16,
+            CALIBRATION_OFFSET = 24,
+            EPC_LENGTH_OFFSET = 32,
+            CHECKSUM_OFFSET = 36;
+    private static final int MAX_EPC_LENGTH = 16;
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+
+    private final Map<Epc, Integer> index = new HashMap<>();
+    private final Deque<Integer> freeRecords = new ArrayDeque<>();
+    private long useStamp = 0;
+
+    private final byte[] recordBytes = new byte[RECORD_SIZE];
+    private final CRC32 crc = new CRC32();
+
+    private CalibrationStore(final RandomAccessFile file, final MappedByteBuffer buffer, final int capacity) {
+        this.file = file;
+        this.buffer = buffer;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Open the store. File of other format or capacity is cleared.
+     */
+    public static CalibrationStore open(final File path, final int capacity) throws IOException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Wrong calibration store capacity");
+        }
+        final long size = HEADER_SIZE + (long) capacity * RECORD_SIZE;
+        final RandomAccessFile file = new RandomAccessFile(path, "rw");
+        try {
+            final boolean valid = file.length() == size && file.readInt() == MAGIC
+                    && file.readInt() == VERSION && file.readInt() == capacity;
+            if (!valid) {
+                // Records are free when their length is 0.
+                file.setLength(0);
+                file.setLength(size);
+            }
+            final MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (!valid) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putInt(8, capacity);
+                buffer.force();
+            }
+
+            final CalibrationStore store = new CalibrationStore(file, buffer, capacity);
+            store.load();
+            return store;
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    private void load() {
+        for (int record = 0; record < capacity; record++) {
+            final int offset = offset(record);
+            final int epcLength = buffer.getInt(offset + EPC_LENGTH_OFFSET);
+            if (epcLength <= 0 || epcLength > MAX_EPC_LENGTH
+                    || buffer.getInt(offset + CHECKSUM_OFFSET) != checksum(record)) {
+                buffer.putInt(offset + EPC_LENGTH_OFFSET, 0);
+                freeRecords.addLast(record);
+                continue;
+            }
+
+            final Epc epc = Epc.of(recordBytes, EPC_OFFSET, epcLength);
+            useStamp = Math.max(useStamp, lastUse(record));
+            // Keep the record used last if the EPC is stored twice.
+            final Integer duplicate = index.get(epc);
+            if (duplicate != null && lastUse(duplicate) >= lastUse(record)) {
+                free(record);
+                continue;
+            } else if (duplicate != null) {
+                free(duplicate);
+            }
+            index.put(epc, record);
+        }
+    }
+
+    /**
+     * @return calibration of the tag or null if it is not stored.
+     */
+    public TagTemperatureReadData get(final Epc epc) {
+        final Integer record = index.get(epc);
+        if (record == null) {
+            return null;
+        }
+        final byte[] data = new byte[CALIBRATION_DATA_SIZE];
+        buffer.position(offset(record) + CALIBRATION_OFFSET);
+        buffer.get(data);
+
+        final TagTemperatureReadData result = new TagTemperatureReadData();
+        if (!result.setCalibrationDataWithCRC(data)) {
+            index.remove(epc);
+            free(record);
+            return null;
+        }
+        buffer.putLong(offset(record) + LAST_USE_OFFSET, ++useStamp);
+        return result;
+    }
+
+    /**
+     * Mark calibration of the tag as used, e.g. when it is taken from a copy kept in memory.
+     *
+     * @return false if the tag is not stored.
+     */
+    public boolean touch(final Epc epc) {
+        final Integer record = index.get(epc);
+        if (record == null) {
+            return false;
+        }
+        buffer.putLong(offset(record) + LAST_USE_OFFSET, ++useStamp);
+        return true;
+    }
+
+    /**
+     * Store calibration of the tag.
+     *
+     * @param calibrationDataWithCRC CRC and calibration words as read from the tag.
+     * @return false if the EPC is too long or data has wrong size.
+     */
+    public boolean put(final Epc epc, final byte[] calibrationDataWithCRC) {
+        if (epc.getLength() > MAX_EPC_LENGTH || calibrationDataWithCRC == null
+                || calibrationDataWithCRC.length != CALIBRATION_DATA_SIZE) {
+            return false;
+        }
+        Integer record = index.get(epc);
+        if (record == null) {
+            record = freeRecords.isEmpty() ? evictLeastRecentlyUsed() : freeRecords.pollFirst();
+            index.put(epc, record);
+        }
+
+        final int offset = offset(record);
+        // Record is free until the checksum is written.
+        buffer.putInt(offset + EPC_LENGTH_OFFSET, 0);
+        final byte[] epcBytes = new byte[MAX_EPC_LENGTH];
+        System.arraycopy(epc.toBytes(), 0, epcBytes, 0, epc.getLength());
+        buffer.position(offset + EPC_OFFSET);
+        buffer.put(epcBytes);
+        buffer.position(offset + CALIBRATION_OFFSET);
+        buffer.put(calibrationDataWithCRC);
+        buffer.putLong(offset + LAST_USE_OFFSET, ++useStamp);
+        buffer.putInt(offset + EPC_LENGTH_OFFSET, epc.getLength());
+        buffer.putInt(offset + CHECKSUM_OFFSET, checksum(record));
+        buffer.force();
+        return true;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        file.close();
+    }
+
+    private int evictLeastRecentlyUsed() {
+        Epc leastRecentlyUsed = null;
+        long minLastUse = Long.MAX_VALUE;
+        for (Map.Entry<Epc, Integer> entry : index.entrySet()) {
+            final long lastUse = lastUse(entry.getValue());
+            if (lastUse < minLastUse) {
+                minLastUse = lastUse;
+                leastRecentlyUsed = entry.getKey();
+            }
+        }
+        return index.remove(leastRecentlyUsed);
+    }
+
+    private void free(final int record) {
+        buffer.putInt(offset(record) + EPC_LENGTH_OFFSET, 0);
+        freeRecords.addLast(record);
+    }
+
+    private long lastUse(final int record) {
+        return buffer.getLong(offset(record) + LAST_USE_OFFSET);
+    }
+
+    /**
+     * Read the record into recordBytes and calculate its checksum.
+     */
+    private int checksum(final int record) {
+        buffer.position(offset(record));
+        buffer.get(recordBytes);
+        crc.reset();
+        crc.update(recordBytes, EPC_OFFSET, LAST_USE_OFFSET - EPC_OFFSET);
+        crc.update(recordBytes, CALIBRATION_OFFSET, CHECKSUM_OFFSET - CALIBRATION_OFFSET);
+        return (int) crc.getValue();
+    }
+
+    private static int offset(final int record) {
+        return HEADER_SIZE + record * RECORD_SIZE;
+    }
+}
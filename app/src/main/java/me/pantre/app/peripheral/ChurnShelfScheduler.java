@@ -0,0 +1,113 @@
+package me.pantre.app.peripheral;
+
+import java.util.Arrays;
+
+/**
+ * Read shelves by their change rate. Active shelves are read every cycle, static shelves less often
+ * and empty shelves least often. Every shelf is read at least once per max stale cycles.
+ */
+public class ChurnShelfScheduler implements ShelfScheduler {
+    /**
+     * Default values (in reading cycles).
+     */
+    public static final int DEFAULT_STATIC_INTERVAL = 3,
+            DEFAULT_MAX_STALE_CYCLES = 4;
+    /**
+     * Default smoothed churn (changed tags per read) from which shelf is active.
+     */
+    public static final double DEFAULT_ACTIVE_CHURN = 1.0;
+
+    /**
+     * Smoothing factor of shelf churn.
+     */
+    private static final double CHURN_SMOOTHING = 0.5;
+
+    private final int shelvesCount;
+    private final int staticInterval;
+    private final int maxStaleCycles;
+    private final double activeChurn;
+
+    /**
+     * Per shelf values, index is shelf number.
+     */
+    private final double[] churn;
+    private final int[] tagsCount;
+    private final long[] lastReadCycle;
+
+    /**
+     * Shelves of the current cycle.
+     */
+    private final int[] cycleShelves;
+
+    public ChurnShelfScheduler(final int shelvesCount) {
+        this(shelvesCount, DEFAULT_STATIC_INTERVAL, DEFAULT_MAX_STALE_CYCLES, DEFAULT_ACTIVE_CHURN);
+    }
+
+    public ChurnShelfScheduler(final int shelvesCount, final int staticInterval, final int maxStaleCycles,
+                               final double activeChurn) {
+        if (staticInterval < 1 || staticInterval > maxStaleCycles) {
+            throw new IllegalArgumentException("staticInterval should be in range 1..maxStaleCycles");
+        }
+        this.shelvesCount = shelvesCount;
+        this.staticInterval = staticInterval;
+        this.maxStaleCycles = maxStaleCycles;
+        this.activeChurn = activeChurn;
+
+        churn = new double[shelvesCount + 1];
+        tagsCount = new int[shelvesCount + 1];
+        lastReadCycle = new long[shelvesCount + 1];
+        // Never read shelves are due immediately.
+        Arrays.fill(lastReadCycle, Long.MIN_VALUE / 2);
+        cycleShelves = new int[shelvesCount];
+    }
+
+    @Override
+    public int[] getShelvesForCycle(final long readingCycleNumber) {
+        int count = 0;
+        int mostStaleShelf = 1;
+        for (int shelf = 1; shelf <= shelvesCount; shelf++) {
+            final long staleCycles = readingCycleNumber - lastReadCycle[shelf];
+            if (staleCycles >= getReadInterval(shelf)) {
+                cycleShelves[count++] = shelf;
+            }
+            if (lastReadCycle[shelf] < lastReadCycle[mostStaleShelf]) {
+                mostStaleShelf = shelf;
+            }
+        }
+
+        // Always read something.
+        if (count == 0) {
+            cycleShelves[count++] = mostStaleShelf;
+        }
+
+        return Arrays.copyOf(cycleShelves, count);
+    }
+
+    /**
+     * @return how often the shelf should be read (in reading cycles).
+     */
+    private int getReadInterval(final int shelf) {
+        if (churn[shelf] >= activeChurn) {
+            return 1;
+        }
+        if (tagsCount[shelf] > 0) {
+            return staticInterval;
+        }
+        return maxStaleCycles;
+    }
+
+    @Override
+    public void onShelfRead(final int shelf, final long readingCycleNumber, final int tagsCount,
+                            final int added, final int removed, final int moved) {
+        if (shelf < 1 || shelf > shelvesCount) {
+            return;
+        }
+        this.tagsCount[shelf] = tagsCount;
+        this.lastReadCycle[shelf] = readingCycleNumber;
+        churn[shelf] += CHURN_SMOOTHING * ((added + removed + moved) - churn[shelf]);
+    }
+
+    public double getChurn(final int shelf) {
+        return churn[shelf];
+    }
+}
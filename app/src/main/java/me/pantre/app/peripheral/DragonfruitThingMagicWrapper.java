@@ -13,17 +13,20 @@ import androidx.annotation.NonNull;
 import com.ftdi.j2xx.D2xxManager;
 import com.ftdi.j2xx.FT_Device;
 import com.thingmagic.AndroidUsbReflection;
+import com.thingmagic.ConcurrentObjectPool;
 import com.thingmagic.Gen2;
+import com.thingmagic.MultiFilter;
+import com.thingmagic.MultiReadPlan;
 import com.thingmagic.ReadListener;
 import com.thingmagic.ReadPlan;
 import com.thingmagic.Reader;
 import com.thingmagic.ReaderException;
 import com.thingmagic.SimpleReadPlan;
-import com.thingmagic.SingleThreadPooledObject;
 import com.thingmagic.TMConstants;
 import com.thingmagic.TagFilter;
 import com.thingmagic.TagOp;
 import com.thingmagic.TagProtocol;
+import com.thingmagic.TagReadData.TagMetadataFlag;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -31,17 +34,32 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Set;
 
+import me.pantre.app.model.Epc;
 import me.pantre.app.model.RfidBand;
+import me.pantre.app.peripheral.model.TagMetadataFlags;
 import me.pantre.app.peripheral.model.TagReadData;
+import me.pantre.app.peripheral.model.TagReadDeduplicator;
+import me.pantre.app.peripheral.model.TagReadProjection;
+import me.pantre.app.peripheral.model.TagReadRingBuffer;
 
 
-public class DragonfruitThingMagicWrapper {
+public class DragonfruitThingMagicWrapper implements TagReaderBackend {
     int TEMPERATURE_SENSOR_BIT_POINTER = 0xE0;
     int TEMPERATURE_CODE_WORD_ADDRESS = 0xE;
     int TEMPERATURE_CALIBRATION_WORD_ADDRESS = 0x8;
     byte TEMPERATURE_CALIBRATION_DATA_LENGTH = 4;
     int TEMPERATURE_WEIGHT = 3000;
+    /**
+     * Sensor codes of Magnus tags in reserved bank: moisture Ch, on-chip RSSI Dh, temperature Eh.
+     */
+    private static final int SENSOR_CODES_WORD_ADDRESS = 0xC;
+    private static final byte SENSOR_CODES_WORD_COUNT = 3;
+    /**
+     * EPC bank bit pointer of EPC after CRC and PC words.
+     */
+    private static final int EPC_BIT_POINTER = 32;
     private static final boolean IS_LOGGING_ENABLED = true;
 
     private static final int NEW_THING_MAGIC_VENDOR_ID = 1027;
@@ -55,29 +73,71 @@ public class DragonfruitThingMagicWrapper {
     private static final String TM_URI_STRING = "tmr:///dev";
     private static final String ACTION_USB_PERMISSION = "com.thingmagic.rfidreader.services.USB_PERMISSION";
     private static final int READ_POWER = 3000; // 30 dBm
+    /**
+     * Capacity of tag reads buffer between read listener and driver.
+     */
+    private static final int TAG_READS_BUFFER_CAPACITY = 4096;
+    /**
+     * Record borrow sites of pooled tag reads to find leaks.
+     */
+    private static final boolean IS_POOL_DEBUG_ENABLED = false;
 
     private final Context context;
     public Reader thingMagicReader;
     private ReadPlan[] readPlanAntInd;
+    /**
+     * Read plan with all chip antennas, used for continuous reading.
+     */
+    private ReadPlan readPlanAllAnt;
+    /**
+     * True while the module is reading continuously.
+     */
+    private boolean continuousReading = false;
     private Integer readPower = -1;
-    private SingleThreadPooledObject<TagReadData> tagReadDataPool;
+    private ConcurrentObjectPool<TagReadData> tagReadDataPool;
+    private TagReadRingBuffer tagReadsBuffer;
+    private TagReadDeduplicator tagReadsDeduplicator;
+    /**
+     * Fields copied from inventory tag reads.
+     */
+    private TagReadProjection tagReadProjection = TagReadProjection.INVENTORY;
+    /**
+     * Tag metadata requested from the module, null until it is set.
+     */
+    private Set<TagMetadataFlag> metadataFlags = null;
+    private boolean metadataSupported = true;
+    /**
+     * Metadata size of the module defaults and bytes per tag report saved by requested metadata.
+     */
+    private int defaultMetadataSize = 0;
+    private int metadataBytesSaved = 0;
+    private long tagReadsOverflowCount = 0;
     boolean deviceHasPermission;
 
     public DragonfruitThingMagicWrapper(Context context) {
         this.context = context;
     }
 
+    @Override
     public void createReadPlans(int chipAntennasCount) {
         readPlanAntInd = new ReadPlan[chipAntennasCount];
         for (int i = 0; i < chipAntennasCount; i++) {
             readPlanAntInd[i] = createSimpleReadPlan(i + 1);
         }
+
+        final int[] antennas = new int[chipAntennasCount];
+        for (int i = 0; i < chipAntennasCount; i++) {
+            antennas[i] = i + 1;
+        }
+        readPlanAllAnt = new SimpleReadPlan(antennas, TagProtocol.GEN2, null, null, 0);
     }
 
     private SimpleReadPlan createSimpleReadPlan(int antennaId) {
         return new SimpleReadPlan(new int[]{antennaId}, TagProtocol.GEN2, null, null, 0);
     }
 
+
+    @Override
     public int getReadPlanCount() {
         return readPlanAntInd == null ? 0 : readPlanAntInd.length;
     }
@@ -136,8 +196,34 @@ public class DragonfruitThingMagicWrapper {
         }
     }
 
+    @Override
+    public boolean connect(final String licenseKey, final RfidBand rfidBand) {
+        try {
+            boolean isOldThingMagicModule = initializeUsbDevice(context);
+            if (deviceHasPermission) {
+                createReader();
+                System.out.printf("Trying to connect ThingMagic");
+                System.out.println();
+                connect(licenseKey, rfidBand, isOldThingMagicModule);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return isConnected();
+    }
+
+    @Override
+    public ReaderClock getClock() {
+        return SystemReaderClock.INSTANCE;
+    }
+
     public void connect(String licenseKey, RfidBand rfidBand, boolean isOldThingMagicModule) {
-        tagReadDataPool = new SingleThreadPooledObject<>(new TagReadData.PooledObjectFactory());
+        // Idle reads of a drained buffer are kept.
+        tagReadDataPool = new ConcurrentObjectPool<>(new TagReadData.PooledObjectFactory(),
+                TAG_READS_BUFFER_CAPACITY, ConcurrentObjectPool.DEFAULT_THREAD_CACHE_SIZE, IS_POOL_DEBUG_ENABLED);
+        tagReadsBuffer = new TagReadRingBuffer(TAG_READS_BUFFER_CAPACITY, tagReadDataPool);
+        tagReadsDeduplicator = new TagReadDeduplicator(tagReadsBuffer);
+        tagReadsDeduplicator.setProjection(tagReadProjection);
         try {
             thingMagicReader.connect();
             thingMagicReader.addTransportListener(Reader.simpleTransportListener);
@@ -158,6 +244,7 @@ public class DragonfruitThingMagicWrapper {
         setReadPower(READ_POWER);
         logReaderInfo();
         setupReaderDefaults();
+        applyMetadataFlags(tagReadProjection);
     }
 
     private void setupRegion(String regionCode) throws Exception {
@@ -198,18 +285,22 @@ public class DragonfruitThingMagicWrapper {
 //        thingMagicReader.paramSet(TMConstants.TMR_PARAM_POWERMODE, Reader.Region);
     }
 
+    @Override
     public void paramSetTari(String value) throws Exception {
         thingMagicReader.paramSet(TMConstants.TMR_PARAM_GEN2_TARI, Gen2.Tari.valueOf(value));
     }
 
+    @Override
     public void paramSetBlf(String value) throws Exception {
         thingMagicReader.paramSet(TMConstants.TMR_PARAM_GEN2_BLF, Gen2.LinkFrequency.valueOf(value));
     }
 
+    @Override
     public void paramSetTagEncoding(String value) throws Exception {
         thingMagicReader.paramSet(TMConstants.TMR_PARAM_GEN2_TAGENCODING, Gen2.TagEncoding.valueOf(value));
     }
 
+    @Override
     public void paramSetQAlgorithm(String value) throws Exception {
         if (value.equals("dynamic")) {
             thingMagicReader.paramSet(TMConstants.TMR_PARAM_GEN2_Q, new Gen2.DynamicQ());
@@ -219,18 +310,41 @@ public class DragonfruitThingMagicWrapper {
         }
     }
 
+    @Override
     public void paramSetSession(String value) throws Exception {
         thingMagicReader.paramSet(TMConstants.TMR_PARAM_GEN2_SESSION, Gen2.Session.valueOf(value));
     }
 
+    @Override
     public void paramSetTarget(String value) throws Exception {
         thingMagicReader.paramSet(TMConstants.TMR_PARAM_GEN2_TARGET, Gen2.Target.valueOf(value));
     }
 
+    @Override
     public boolean isConnected() {
         return thingMagicReader != null;
     }
 
+    /**
+     * Set one weighted read plan with all chip antennas. Reader splits read time between antennas by weights.
+     *
+     * @param weights weight for each read plan index.
+     */
+    @Override
+    public void paramSetMultiReadPlan(final int[] weights) throws Exception {
+        final ReadPlan[] plans = new ReadPlan[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            plans[i] = new SimpleReadPlan(new int[]{i + 1}, TagProtocol.GEN2, null, null, weights[i]);
+        }
+        final MultiReadPlan multiReadPlan = new MultiReadPlan(plans);
+        thingMagicReader.paramSet(TMConstants.TMR_PARAM_READ_PLAN, multiReadPlan);
+        if (IS_LOGGING_ENABLED) {
+            System.out.printf("Read plan is %s", multiReadPlan);
+            System.out.println();
+        }
+    }
+
+    @Override
     public void paramSetReadPlan(final int readPlanIndex) throws Exception {
         if (readPlanAntInd != null && readPlanIndex < readPlanAntInd.length) {
             thingMagicReader.paramSet(TMConstants.TMR_PARAM_READ_PLAN, readPlanAntInd[readPlanIndex]);
@@ -241,43 +355,178 @@ public class DragonfruitThingMagicWrapper {
     }
 
 
-    private final List<TagReadData> tagReadsResult = new ArrayList<>();
-    private final ReadListener tagReadsListener = (reader, tagReadData) -> tagReadsResult.add(transformTagReadData(tagReadData));
+    /**
+     * Runs in reader thread. Copy tag read into preallocated buffer slot, repeat reads are folded into the slot
+     * of the EPC until it is drained.
+     */
+    private final ReadListener tagReadsListener = (reader, tagReadData) -> tagReadsDeduplicator.add(tagReadData);
     private void initTagReadsReadListener() {
         thingMagicReader.addReadListener(tagReadsListener);
     }
 
+    @Override
     public TagReadData[] read(final long duration) throws Exception {
+        final List<TagReadData> tagReads = new ArrayList<>();
+        read(duration, tagReads);
+        return tagReads.toArray(new TagReadData[0]);
+    }
+
+    /**
+     * Read tags and add them to the list.
+     * IMPORTANT: We have a pool of read data object and handle them manually.
+     */
+    @Override
+    public void read(final long duration, final List<TagReadData> tagReads) throws Exception {
+        if (continuousReading) {
+            throw new IllegalStateException("Continuous reading is running");
+        }
         System.out.println("(hello) tagReadsResult.clear();");
-        tagReadsResult.clear();
+        tagReadsBuffer.clear();
         System.out.println("(hello) tagReadsResult.startReading();");
         thingMagicReader.startReading();
-        Thread.sleep(duration);
+        getClock().sleep(duration);
         thingMagicReader.stopReading();
-        return tagReadsResult.toArray(new TagReadData[0]);
+        drainTagReads(tagReads);
+    }
+
+    /**
+     * Start reading with current read plan. Tags are collected by {@link #pollReads(List)}
+     * until {@link #stopReading(List)} is called.
+     */
+    @Override
+    public void startReading() {
+        if (continuousReading) {
+            throw new IllegalStateException("Continuous reading is running");
+        }
+        tagReadsBuffer.clear();
+        thingMagicReader.startReading();
     }
 
-    private TagReadData transformTagReadData(final com.thingmagic.TagReadData tagReadData) {
-        final TagReadData result = tagReadDataPool.borrowObject();
+    /**
+     * Add tags read so far to the list.
+     * IMPORTANT: We have a pool of read data object and handle them manually.
+     */
+    @Override
+    public void pollReads(final List<TagReadData> tagReads) {
+        drainTagReads(tagReads);
+    }
 
-        result.setEpc(tagReadData.epcString());
-        result.setAntenna(tagReadData.getAntenna());
-        result.setTime(tagReadData.getTime());
-        result.setRssi(tagReadData.getRssi());
-        result.setFrequency(tagReadData.getFrequency());
-        result.setPhase(tagReadData.getPhase());
-        result.setReadCount(tagReadData.getReadCount());
-        result.setData(tagReadData.getData());
-        result.setTag(tagReadData.getTag());
-        result.setTIDMemData(tagReadData.getTIDMemData());
+    /**
+     * Stop reading started by {@link #startReading()} and add the rest of tags to the list.
+     */
+    @Override
+    public void stopReading(final List<TagReadData> tagReads) {
+        thingMagicReader.stopReading();
+        drainTagReads(tagReads);
+    }
 
-        return result;
+    /**
+     * Start continuous reading with all chip antennas. The module controls RF duty cycle by async on/off time,
+     * host only collects tags from the read listener. Does nothing if reading is already running.
+     */
+    @Override
+    public void startContinuousReading(final long asyncOnTime, final long asyncOffTime) throws Exception {
+        if (continuousReading) {
+            return;
+        }
+        thingMagicReader.paramSet(TMConstants.TMR_PARAM_READ_ASYNCONTIME, (int) asyncOnTime);
+        thingMagicReader.paramSet(TMConstants.TMR_PARAM_READ_ASYNCOFFTIME, (int) asyncOffTime);
+        thingMagicReader.paramSet(TMConstants.TMR_PARAM_READ_PLAN, readPlanAllAnt);
+        tagReadsBuffer.clear();
+        thingMagicReader.startReading();
+        continuousReading = true;
+
+        if (IS_LOGGING_ENABLED) {
+            System.out.printf("Continuous reading started. asyncOnTime=%d, asyncOffTime=%d", asyncOnTime, asyncOffTime);
+            System.out.println();
+        }
+    }
+
+    /**
+     * Stop continuous reading. Tags which are not collected yet are returned to the pool.
+     */
+    @Override
+    public void stopContinuousReading() {
+        if (!continuousReading) {
+            return;
+        }
+        thingMagicReader.stopReading();
+        continuousReading = false;
+        tagReadsBuffer.clear();
+        applyMetadataFlags(tagReadProjection);
+
+        if (IS_LOGGING_ENABLED) System.out.println("Continuous reading stopped.");
     }
 
+    @Override
+    public boolean isContinuousReading() {
+        return continuousReading;
+    }
+
+    /**
+     * Collect tags read during a time window of continuous reading and add them to the list.
+     * Tags read before window start (plus settle time for the RF switch) belong to the previous window,
+     * they are returned to the pool.
+     */
+    @Override
+    public void readWindow(final long duration, final long settleTime, final List<TagReadData> tagReads) throws Exception {
+        final long windowStart = getClock().currentTimeMillis() + settleTime;
+        tagReadsDeduplicator.setWindowStart(windowStart);
+        getClock().sleep(duration);
+
+        final int from = tagReads.size();
+        drainTagReads(tagReads);
+        int count = from;
+        for (int i = from; i < tagReads.size(); i++) {
+            final TagReadData tagReadData = tagReads.get(i);
+            if (tagReadData.getTime() < windowStart) {
+                returnObject(tagReadData);
+            } else {
+                tagReads.set(count++, tagReadData);
+            }
+        }
+        while (tagReads.size() > count) {
+            tagReads.remove(tagReads.size() - 1);
+        }
+    }
+
+    private void drainTagReads(final List<TagReadData> tagReads) {
+        tagReadsBuffer.drainTo(tagReads);
+
+        final long overflowCount = tagReadsBuffer.getOverflowCount();
+        if (overflowCount != tagReadsOverflowCount) {
+            System.out.printf("Tag reads buffer overflow. Dropped: %d, high water mark: %d",
+                    overflowCount - tagReadsOverflowCount, tagReadsBuffer.getHighWaterMark());
+            System.out.println();
+            tagReadsOverflowCount = overflowCount;
+        }
+    }
+
+    public long getTagReadsOverflowCount() {
+        return tagReadsBuffer.getOverflowCount();
+    }
+
+    public int getTagReadsHighWaterMark() {
+        return tagReadsBuffer.getHighWaterMark();
+    }
+
+    /**
+     * @return count of repeat reads folded into records of the same EPC.
+     */
+    public long getTagReadsFoldedCount() {
+        return tagReadsDeduplicator.getFoldedCount();
+    }
+
+    @Override
     public void returnObject(final TagReadData o) {
         tagReadDataPool.returnObject(o);
     }
 
+    @Override
+    public ConcurrentObjectPool<TagReadData> getTagReadDataPool() {
+        return tagReadDataPool;
+    }
+
     public static String shortsToHexString(short[] shorts) {
         if (shorts == null || shorts.length == 0) {
             return "";
@@ -303,6 +552,7 @@ public class DragonfruitThingMagicWrapper {
         return sb.toString();
     }
 
+    @Override
     public TagReadData[] readTemperatureCode(final int antenna, final long readDuration, TagReadData tagReadData) throws Exception {
         final Gen2.Select gen2Select = new Gen2.Select(false, Gen2.Bank.USER, TEMPERATURE_SENSOR_BIT_POINTER, 0, new byte[]{});
         final TagOp onChipTempRead = new Gen2.ReadData(Gen2.Bank.RESERVED, TEMPERATURE_CODE_WORD_ADDRESS, (byte) 1);
@@ -313,7 +563,7 @@ public class DragonfruitThingMagicWrapper {
         final SimpleReadPlan readPlan = new SimpleReadPlan(new int[]{antenna}, TagProtocol.GEN2, gen2Select, onChipTempRead, 3000, true);
         thingMagicReader.paramSet(TMConstants.TMR_PARAM_READ_PLAN, readPlan);
 //        thingMagicReader.paramSet(TMConstants.TMR_PARAM_GEN2_T4, 3000);
-        TagReadData[] result = read(readDuration);
+        TagReadData[] result = readSensorData(readDuration);
         System.out.println("readTemperatureCode result = " + Arrays.toString(result));
 //
 //        // Read temperature code from the tag.
@@ -565,24 +815,175 @@ public class DragonfruitThingMagicWrapper {
         return SensorTagType.GENERIC;
     }
 
-    public TagReadData[] readTemperatureCalibration(final String epc, final int antenna, final long readDuration) throws Exception {
+    @Override
+    public TagReadData[] readTemperatureCalibration(final Epc epc, final int antenna, final long readDuration) throws Exception {
         // Read 3 words 9h, Ah, Bh. Do not read 8h it includes CRC code which we do not use right now.
         final TagOp onChipTempRead = new Gen2.ReadData(Gen2.Bank.USER, TEMPERATURE_CALIBRATION_WORD_ADDRESS, TEMPERATURE_CALIBRATION_DATA_LENGTH);
-        final SimpleReadPlan readPlan = new SimpleReadPlan(new int[]{antenna}, TagProtocol.GEN2, new Gen2.TagData(epc), onChipTempRead, 0);
+        final SimpleReadPlan readPlan = new SimpleReadPlan(new int[]{antenna}, TagProtocol.GEN2, new Gen2.TagData(epc.toBytes()), onChipTempRead, 0);
+
+        thingMagicReader.paramSet(TMConstants.TMR_PARAM_READ_PLAN, readPlan);
+        return readSensorData(readDuration);
+    }
+
+    /**
+     * Read sensor codes of all sensor tags in one inventory. Sensor SKUs are selected by EPC prefix,
+     * the last select makes Magnus tags measure temperature before they are singulated.
+     */
+    @Override
+    public void readSensorCodes(final int[] antennas, final long readDuration, final List<TagReadData> tagReads) throws Exception {
+        final TagOp sensorCodesRead = new Gen2.ReadData(Gen2.Bank.RESERVED, SENSOR_CODES_WORD_ADDRESS, SENSOR_CODES_WORD_COUNT);
+        final SimpleReadPlan readPlan = new SimpleReadPlan(antennas, TagProtocol.GEN2, createSensorTagsFilter(true),
+                sensorCodesRead, TEMPERATURE_WEIGHT, true);
+        thingMagicReader.paramSet(TMConstants.TMR_PARAM_READ_PLAN, readPlan);
+        readSensorData(readDuration, tagReads);
+    }
 
+    /**
+     * Read calibration of all sensor tags in one inventory instead of a singulated read per tag.
+     * This module API embeds only one read operation per plan, so sensor codes and calibration are read
+     * by separate inventories.
+     */
+    @Override
+    public void readSensorCalibration(final int[] antennas, final long readDuration, final List<TagReadData> tagReads) throws Exception {
+        final TagOp calibrationRead = new Gen2.ReadData(Gen2.Bank.USER, TEMPERATURE_CALIBRATION_WORD_ADDRESS, TEMPERATURE_CALIBRATION_DATA_LENGTH);
+        final SimpleReadPlan readPlan = new SimpleReadPlan(antennas, TagProtocol.GEN2, createSensorTagsFilter(false),
+                calibrationRead, 0);
         thingMagicReader.paramSet(TMConstants.TMR_PARAM_READ_PLAN, readPlan);
-        return read(readDuration);
+        readSensorData(readDuration, tagReads);
+    }
+
+    /**
+     * Select tags which match any sensor EPC prefix.
+     *
+     * @param measureTemperature enable temperature measurement of Magnus tags.
+     */
+    private TagFilter createSensorTagsFilter(final boolean measureTemperature) {
+        final List<TagFilter> filters = new ArrayList<>();
+        for (Epc prefix : TagReadData.TEMPERATURE_EPC_PREFIXES) {
+            final Gen2.Select prefixSelect = new Gen2.Select(false, Gen2.Bank.EPC, EPC_BIT_POINTER,
+                    prefix.getLength() * Byte.SIZE, prefix.toBytes());
+            // First select deselects other tags, next ones add matching tags.
+            prefixSelect.action = filters.isEmpty() ? Gen2.Select.Action.ON_N_OFF : Gen2.Select.Action.ON_N_NOP;
+            filters.add(prefixSelect);
+        }
+        if (!measureTemperature) {
+            return new MultiFilter(filters.toArray(new TagFilter[0]));
+        }
+        // Empty mask matches all tags, selection is not changed.
+        final Gen2.Select temperatureSelect = new Gen2.Select(false, Gen2.Bank.USER, TEMPERATURE_SENSOR_BIT_POINTER, 0, new byte[]{});
+        temperatureSelect.action = Gen2.Select.Action.NOP_N_OFF;
+        filters.add(temperatureSelect);
+        return new MultiFilter(filters.toArray(new TagFilter[0]));
     }
 
+    /**
+     * Read tags with memory data of the tag operation.
+     */
+    private TagReadData[] readSensorData(final long readDuration) throws Exception {
+        final List<TagReadData> tagReads = new ArrayList<>();
+        readSensorData(readDuration, tagReads);
+        return tagReads.toArray(new TagReadData[0]);
+    }
+
+    /**
+     * Read tags with memory data. The driver sets a projection with data for all sensor reads of the cycle,
+     * otherwise data is requested for this read only.
+     */
+    private void readSensorData(final long readDuration, final List<TagReadData> tagReads) throws Exception {
+        if (tagReadProjection.contains(TagReadProjection.Field.DATA)) {
+            read(readDuration, tagReads);
+            return;
+        }
+        final TagReadProjection sensorProjection = tagReadProjection.with(TagReadProjection.Field.DATA);
+        applyMetadataFlags(sensorProjection);
+        tagReadsDeduplicator.setProjection(sensorProjection);
+        try {
+            read(readDuration, tagReads);
+        } finally {
+            tagReadsDeduplicator.setProjection(tagReadProjection);
+            applyMetadataFlags(tagReadProjection);
+        }
+    }
+
+    @Override
+    public void setTagReadProjection(final TagReadProjection projection) {
+        tagReadProjection = projection;
+        if (tagReadsDeduplicator != null) {
+            tagReadsDeduplicator.setProjection(projection);
+        }
+        // Parameters can not be changed during continuous reading, metadata is applied when it stops.
+        if (!continuousReading && isConnected()) {
+            applyMetadataFlags(projection);
+        }
+    }
+
+    /**
+     * Request only tag metadata which the projection needs, so tag reports are shorter on the serial link.
+     * Does nothing if the metadata is already set or the module does not support it.
+     */
+    @SuppressWarnings("unchecked")
+    private void applyMetadataFlags(final TagReadProjection projection) {
+        final Set<TagMetadataFlag> flags = TagMetadataFlags.of(projection);
+        if (!metadataSupported || flags.equals(metadataFlags)) {
+            return;
+        }
+        try {
+            if (metadataFlags == null) {
+                defaultMetadataSize = TagMetadataFlags.sizeOf(
+                        (Set<TagMetadataFlag>) thingMagicReader.paramGet(TMConstants.TMR_PARAM_READER_METADATA));
+            }
+            thingMagicReader.paramSet(TMConstants.TMR_PARAM_READER_METADATA, flags);
+            metadataFlags = flags;
+            metadataBytesSaved = defaultMetadataSize - TagMetadataFlags.sizeOf(flags);
+
+            if (IS_LOGGING_ENABLED) {
+                System.out.printf("Reader metadata is %s, saved bytes per tag: %d", flags, metadataBytesSaved);
+                System.out.println();
+            }
+        } catch (Exception e) {
+            // Old modules do not support metadata selection, they send default metadata.
+            metadataSupported = false;
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return bytes per tag report saved by requested metadata compared to the module defaults.
+     */
+    public int getMetadataBytesSaved() {
+        return metadataBytesSaved;
+    }
+
+    @Override
+    public TagReadProjection getTagReadProjection() {
+        return tagReadProjection;
+    }
+
+
+    /**
+     * @return radio temperature in degrees C or null if it can't be read.
+     */
+    @Override
+    public Integer getRadioTemperature() {
+        try {
+            return (Integer) thingMagicReader.paramGet(TMConstants.TMR_PARAM_RADIO_TEMPERATURE);
+        } catch (ReaderException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
 
+    @Override
     public Integer getMaxReadPower() {
         return READ_POWER;
     }
 
+    @Override
     public Integer getReadPower() {
         return READ_POWER;
     }
 
+    @Override
     public void setReadPower(@NonNull final Integer power) {
         if (power.intValue() == readPower.intValue()) {
             // Value already set.
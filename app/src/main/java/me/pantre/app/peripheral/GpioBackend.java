@@ -0,0 +1,19 @@
+package me.pantre.app.peripheral;
+
+/**
+ * Sets values of GPIO lines.
+ */
+public interface GpioBackend {
+
+    void setGpioValue(int chip, int line, int value);
+
+    /**
+     * Set several lines in one operation.
+     */
+    void setGpioValues(int[] chips, int[] lines, int[] values);
+
+    /**
+     * @return duration of the last {@link #setGpioValues(int[], int[], int[])} call in ns.
+     */
+    long getLastSwitchLatency();
+}
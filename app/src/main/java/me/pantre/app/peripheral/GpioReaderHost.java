@@ -0,0 +1,56 @@
+package me.pantre.app.peripheral;
+
+import java.io.File;
+
+/**
+ * Reader host which chooses shelves with RF switch lines of the mux board.
+ */
+public class GpioReaderHost implements ReaderHost {
+    private static final boolean IS_LOGGING_ENABLED = true;
+
+    /**
+     * RF switch lines and their values for each shelf.
+     */
+    protected static final int[] RF_SWITCH_CHIPS = {GpioContstants.GPIO_FIFTH_CHIP, GpioContstants.GPIO_SECOND_CHIP},
+            RF_SWITCH_LINES = {GpioContstants.GPIO_RF_SWITCH_ONE, GpioContstants.GPIO_RF_SWITCH_TWO};
+    private static final int[][] RF_SWITCH_SHELF_VALUES = {{0, 0}, {0, 1}, {1, 0}, {1, 1}};
+
+    protected final GpioBackend gpioBackend;
+    private final File filesDir;
+
+    /**
+     * @param filesDir directory of driver files or null to keep them in memory only.
+     */
+    public GpioReaderHost(final GpioBackend gpioBackend, final File filesDir) {
+        this.gpioBackend = gpioBackend;
+        this.filesDir = filesDir;
+    }
+
+    @Override
+    public void setShelf(final int shelf) {
+        if (IS_LOGGING_ENABLED) {
+            System.out.printf("Set shelf to %d", shelf);
+            System.out.println();
+        }
+
+        if (shelf < 1 || shelf > RF_SWITCH_SHELF_VALUES.length) {
+            return;
+        }
+        gpioBackend.setGpioValues(RF_SWITCH_CHIPS, RF_SWITCH_LINES, RF_SWITCH_SHELF_VALUES[shelf - 1]);
+
+        if (IS_LOGGING_ENABLED) {
+            System.out.printf("Shelf switch latency: %d us", gpioBackend.getLastSwitchLatency() / 1000);
+            System.out.println();
+        }
+    }
+
+    @Override
+    public void onReaderConnected() {
+        System.out.println("Reader ready");
+    }
+
+    @Override
+    public File getFilesDir() {
+        return filesDir;
+    }
+}
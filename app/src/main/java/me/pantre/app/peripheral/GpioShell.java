@@ -4,7 +4,7 @@ import android.annotation.SuppressLint;
 
 import com.jaredrummler.ktsh.Shell;
 
-public class GpioShell {
+public class GpioShell implements GpioBackend {
     public GpioShell() {
         shellRun("su");
     }
@@ -19,8 +19,37 @@ public class GpioShell {
 
     private final Shell shell = new Shell("sh");
 
-    @SuppressLint("DefaultLocale")
+    private long lastSwitchLatency = 0;
+
+    @Override
     public void setGpioValue(final int chip, final int line, final int value) {
-        shellRun(String.format("/system/bin/gpioset gpiochip%d %d=%d", chip, line, value));
+        shellRun(gpiosetCommand(chip, line, value));
+    }
+
+    /**
+     * Run all gpioset commands in one shell call.
+     */
+    @Override
+    public void setGpioValues(final int[] chips, final int[] lines, final int[] values) {
+        final long start = System.nanoTime();
+        final StringBuilder command = new StringBuilder();
+        for (int i = 0; i < chips.length; i++) {
+            if (i > 0) {
+                command.append(" && ");
+            }
+            command.append(gpiosetCommand(chips[i], lines[i], values[i]));
+        }
+        shellRun(command.toString());
+        lastSwitchLatency = System.nanoTime() - start;
+    }
+
+    @Override
+    public long getLastSwitchLatency() {
+        return lastSwitchLatency;
+    }
+
+    @SuppressLint("DefaultLocale")
+    private static String gpiosetCommand(final int chip, final int line, final int value) {
+        return String.format("/system/bin/gpioset gpiochip%d %d=%d", chip, line, value);
     }
 }
@@ -0,0 +1,120 @@
+package me.pantre.app.peripheral;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import me.pantre.app.model.Epc;
+import me.pantre.app.model.InventoryStore;
+
+/**
+ * Evict tags which are absent from the shelves for too long, so the inventory does not keep every EPC ever seen.
+ * Tags are queued when they are not found anymore, the queue is ordered by absence start and only its head is checked.
+ * <p>
+ * Not thread safe.
+ */
+public class InventoryAging {
+    /**
+     * Default values. 0 disables the threshold.
+     */
+    public static final long DEFAULT_MAX_ABSENT_CYCLES = 0,
+            DEFAULT_MAX_ABSENT_TIME = 24 * 60 * 60 * 1000L;
+
+    /**
+     * Evict a tag absent for this count of reading cycles.
+     */
+    private final long maxAbsentCycles;
+    /**
+     * Evict a tag absent for this time (in ms).
+     */
+    private final long maxAbsentTime;
+
+    private final Deque<AbsentTag> absentTags = new ArrayDeque<>();
+    private long evictedCount = 0;
+
+    public InventoryAging() {
+        this(DEFAULT_MAX_ABSENT_CYCLES, DEFAULT_MAX_ABSENT_TIME);
+    }
+
+    public InventoryAging(final long maxAbsentCycles, final long maxAbsentTime) {
+        if (maxAbsentCycles < 0 || maxAbsentTime < 0) {
+            throw new IllegalArgumentException("Negative absence threshold");
+        }
+        this.maxAbsentCycles = maxAbsentCycles;
+        this.maxAbsentTime = maxAbsentTime;
+    }
+
+    /**
+     * Queue tags removed by the last tracker update and evict the ones absent for too long.
+     * Store rows are compacted and the tracker follows moved rows.
+     *
+     * @return count of evicted tags.
+     */
+    public int update(final InventoryStore inventory, final InventoryDeltaTracker deltaTracker,
+                      final long readingCycleNumber, final long now) {
+        for (int i = 0; i < deltaTracker.getRemovedCount(); i++) {
+            final int row = deltaTracker.getRemovedRow(i);
+            absentTags.addLast(new AbsentTag(inventory.getEpc(row), inventory.getReadingCycleNumber(row),
+                    readingCycleNumber, now));
+        }
+
+        int evicted = 0;
+        while (!absentTags.isEmpty() && isExpired(absentTags.peekFirst(), readingCycleNumber, now)) {
+            final AbsentTag absentTag = absentTags.removeFirst();
+            final int row = inventory.indexOf(absentTag.epc);
+            // Tag could be found again after it was queued.
+            if (row < 0 || deltaTracker.isPresent(row)
+                    || inventory.getReadingCycleNumber(row) != absentTag.lastReadingCycleNumber) {
+                continue;
+            }
+
+            final int movedRow = inventory.remove(row);
+            if (movedRow >= 0) {
+                deltaTracker.moveRow(movedRow, row);
+            }
+            evicted++;
+        }
+
+        if (evicted > 0) {
+            inventory.compact();
+            evictedCount += evicted;
+        }
+        return evicted;
+    }
+
+    /**
+     * @return count of tags evicted since start.
+     */
+    public long getEvictedCount() {
+        return evictedCount;
+    }
+
+    /**
+     * @return count of tags waiting for eviction.
+     */
+    public int getAbsentCount() {
+        return absentTags.size();
+    }
+
+    private boolean isExpired(final AbsentTag absentTag, final long readingCycleNumber, final long now) {
+        return (maxAbsentCycles > 0 && readingCycleNumber - absentTag.removedReadingCycleNumber >= maxAbsentCycles)
+                || (maxAbsentTime > 0 && now - absentTag.removedTime >= maxAbsentTime);
+    }
+
+    private static final class AbsentTag {
+        private final Epc epc;
+        /**
+         * Reading cycle of the last read, changes if the tag is found again.
+         */
+        private final long lastReadingCycleNumber;
+        private final long removedReadingCycleNumber;
+        private final long removedTime;
+
+        private AbsentTag(final Epc epc, final long lastReadingCycleNumber,
+                          final long removedReadingCycleNumber, final long removedTime) {
+            this.epc = epc;
+            this.lastReadingCycleNumber = lastReadingCycleNumber;
+            this.removedReadingCycleNumber = removedReadingCycleNumber;
+            this.removedTime = removedTime;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package me.pantre.app.peripheral;
+
+import java.util.Arrays;
+import java.util.List;
+
+import me.pantre.app.model.InventoryChange;
+import me.pantre.app.model.InventoryStore;
+
+/**
+ * Find changes of the inventory made by a reading cycle.
+ * Tags read in the cycle are taken from the change log of the store, tags which are not found anymore
+ * are taken from the rows present on the read shelves. Cost depends on count of read tags, not on the inventory size.
+ * <p>
+ * Rows are the same in all versions of the inventory. Not thread safe.
+ */
+public class InventoryDeltaTracker {
+    /**
+     * RSSI change which is reported (in dBm).
+     */
+    private static final int RSSI_CHANGE_THRESHOLD = 6;
+
+    /**
+     * Shelf where the tag of each row is present, 0 if it is not present.
+     */
+    private int[] presentShelf = new int[0];
+    /**
+     * Real antenna and RSSI of the last reported change of each row.
+     */
+    private int[] reportedRealAntenna = new int[0];
+    private int[] reportedRssi = new int[0];
+
+    /**
+     * Rows present on each shelf. Rows which moved to an other shelf are skipped by presentShelf.
+     */
+    private final int[][] shelfRows;
+    private final int[] shelfRowsCount;
+
+    /**
+     * Shelf lists are rebuilt on the next update after rows were moved.
+     */
+    private boolean rowsMoved = false;
+
+    private final boolean[] readShelves;
+
+    /**
+     * Rows of tags which were not found in the last update.
+     */
+    private int[] removedRows = new int[16];
+    private int removedCount = 0;
+
+    public InventoryDeltaTracker(final int shelvesCount) {
+        this.shelfRows = new int[shelvesCount + 1][16];
+        this.shelfRowsCount = new int[shelvesCount + 1];
+        this.readShelves = new boolean[shelvesCount + 1];
+    }
+
+    /**
+     * Update present tags by the reading cycle.
+     *
+     * @param inventory          inventory of the cycle, changes are tracked since the previous cycle.
+     * @param readingCycleNumber number of the cycle.
+     * @param shelves            shelves which were read completely in the cycle.
+     * @param shelvesCount       count of shelves in the array.
+     * @param changes            list to add changes to, or null if changes are not needed.
+     */
+    public void update(final InventoryStore inventory, final long readingCycleNumber,
+                       final int[] shelves, final int shelvesCount, final List<InventoryChange> changes) {
+        ensureCapacity(inventory.size());
+        if (rowsMoved) {
+            rebuildShelfRows(inventory.size());
+        }
+
+        removedCount = 0;
+        // Tags of the read shelves which were not found.
+        Arrays.fill(readShelves, false);
+        for (int i = 0; i < shelvesCount; i++) {
+            final int shelf = shelves[i];
+            readShelves[shelf] = true;
+            final int[] rows = shelfRows[shelf];
+            for (int j = 0; j < shelfRowsCount[shelf]; j++) {
+                final int row = rows[j];
+                if (presentShelf[row] == shelf && inventory.getReadingCycleNumber(row) != readingCycleNumber) {
+                    presentShelf[row] = 0;
+                    addRemovedRow(row);
+                    if (changes != null) {
+                        changes.add(new InventoryChange(InventoryChange.Type.REMOVED, inventory.toItem(row),
+                                shelf, reportedRealAntenna[row], reportedRssi[row]));
+                    }
+                }
+            }
+            shelfRowsCount[shelf] = 0;
+        }
+
+        // Tags read in the cycle.
+        for (int i = 0; i < inventory.getChangedCount(); i++) {
+            final int row = inventory.getChangedRow(i);
+            final int shelf = inventory.getShelf(row);
+            final int realAntenna = inventory.getRealAntenna(row);
+            final int rssi = inventory.getRssi(row);
+            final int previousShelf = presentShelf[row];
+
+            final InventoryChange.Type type;
+            if (previousShelf == 0) {
+                type = InventoryChange.Type.ADDED;
+            } else if (previousShelf != shelf || reportedRealAntenna[row] != realAntenna) {
+                type = InventoryChange.Type.MOVED;
+            } else if (Math.abs(rssi - reportedRssi[row]) >= RSSI_CHANGE_THRESHOLD) {
+                type = InventoryChange.Type.RSSI_CHANGED;
+            } else {
+                type = null;
+            }
+
+            if (type != null) {
+                if (changes != null) {
+                    changes.add(new InventoryChange(type, inventory.toItem(row),
+                            previousShelf, reportedRealAntenna[row], reportedRssi[row]));
+                }
+                reportedRealAntenna[row] = realAntenna;
+                reportedRssi[row] = rssi;
+            }
+
+            // Lists of read shelves were cleared above, other lists already contain rows present on them.
+            if (readShelves[shelf] || previousShelf != shelf) {
+                addShelfRow(shelf, row);
+            }
+            presentShelf[row] = shelf;
+        }
+    }
+
+    /**
+     * @return true if the tag of the row was found on its shelf when the shelf was read last time.
+     */
+    public boolean isPresent(final int row) {
+        return presentShelf[row] != 0;
+    }
+
+    /**
+     * @return count of tags which were not found in the last update.
+     */
+    public int getRemovedCount() {
+        return removedCount;
+    }
+
+    public int getRemovedRow(final int index) {
+        return removedRows[index];
+    }
+
+    /**
+     * Row was moved by {@link InventoryStore#remove(int)}, the tag of the target row was removed.
+     */
+    public void moveRow(final int from, final int to) {
+        presentShelf[to] = presentShelf[from];
+        reportedRealAntenna[to] = reportedRealAntenna[from];
+        reportedRssi[to] = reportedRssi[from];
+        // Row will be used by a new tag.
+        presentShelf[from] = 0;
+        rowsMoved = true;
+    }
+
+    private void rebuildShelfRows(final int rowsCount) {
+        Arrays.fill(shelfRowsCount, 0);
+        for (int row = 0; row < rowsCount; row++) {
+            if (presentShelf[row] != 0) {
+                addShelfRow(presentShelf[row], row);
+            }
+        }
+        rowsMoved = false;
+    }
+
+    private void addRemovedRow(final int row) {
+        if (removedCount == removedRows.length) {
+            removedRows = Arrays.copyOf(removedRows, removedRows.length * 2);
+        }
+        removedRows[removedCount++] = row;
+    }
+
+    private void addShelfRow(final int shelf, final int row) {
+        if (shelfRowsCount[shelf] == shelfRows[shelf].length) {
+            shelfRows[shelf] = Arrays.copyOf(shelfRows[shelf], shelfRows[shelf].length * 2);
+        }
+        shelfRows[shelf][shelfRowsCount[shelf]++] = row;
+    }
+
+    private void ensureCapacity(final int rowsCount) {
+        if (presentShelf.length >= rowsCount) {
+            return;
+        }
+        final int capacity = Math.max(rowsCount, presentShelf.length * 2);
+        presentShelf = Arrays.copyOf(presentShelf, capacity);
+        reportedRealAntenna = Arrays.copyOf(reportedRealAntenna, capacity);
+        reportedRssi = Arrays.copyOf(reportedRssi, capacity);
+    }
+}
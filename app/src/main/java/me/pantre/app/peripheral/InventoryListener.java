@@ -0,0 +1,12 @@
+package me.pantre.app.peripheral;
+
+import me.pantre.app.model.InventoryDelta;
+
+/**
+ * Receives inventory changes once per reading cycle.
+ * Called on the event thread of the driver, in order of reading cycles. Cycles without changes are not reported.
+ */
+public interface InventoryListener {
+
+    void onInventoryChanged(InventoryDelta delta);
+}
@@ -0,0 +1,207 @@
+package me.pantre.app.peripheral;
+
+import java.util.List;
+
+import me.pantre.app.model.Epc;
+import me.pantre.app.model.InventoryStore;
+import me.pantre.app.peripheral.model.TagReadData;
+import me.pantre.app.peripheral.model.TagReadDataCache;
+
+/**
+ * Merge tag reads into inventory map of the reading cycle and count shelf churn.
+ * All methods are called from the merge thread, in order of reads.
+ */
+public class InventoryMerger {
+    private static final boolean IS_LOGGING_ENABLED = true;
+
+    /**
+     * EPC length filtering value (in bytes, 24 hex digits)
+     **/
+    private static final int EPC_VALID_LENGTH = 12;
+
+    /**
+     * RSSI change of a tag which is counted as move (in dBm).
+     */
+    private static final int RSSI_MOVE_THRESHOLD = 6;
+
+    /**
+     * How many RFID chip has antennas.
+     */
+    private final int chipAntennasCount;
+    /**
+     * How many real antennas we have.
+     */
+    private final int realAntennasCount;
+
+    /**
+     * Cache of tags found during reading cycle
+     */
+    private final TagReadDataCache tagReadCache;
+
+    /**
+     * Receives churn of each shelf read.
+     */
+    private volatile ShelfScheduler shelfScheduler;
+
+    /**
+     * Reading cycle and count of found tags of the last read of each shelf. Shelf reads which failed are not
+     * finished, tags found by them since the last finished read are retained.
+     */
+    private final long[] shelfReadCycles;
+    private final int[] shelfTagsCount;
+
+    /**
+     * Churn counters of the current shelf read.
+     */
+    private int shelfSeen, shelfAdded, shelfRetained, shelfMoved;
+
+    public InventoryMerger(final int chipAntennasCount, final int realAntennasCount, final int shelvesCount,
+                           final TagReadDataCache tagReadCache, final ShelfScheduler shelfScheduler) {
+        this.chipAntennasCount = chipAntennasCount;
+        this.realAntennasCount = realAntennasCount;
+        this.tagReadCache = tagReadCache;
+        this.shelfScheduler = shelfScheduler;
+        this.shelfReadCycles = new long[shelvesCount + 1];
+        this.shelfTagsCount = new int[shelvesCount + 1];
+    }
+
+    /**
+     * @return read plan index for ThingMagic antenna. Read plan i reads antenna i + 1.
+     */
+    public static int getReadPlanIndex(final int antenna) {
+        return antenna - 1;
+    }
+
+    public void setShelfScheduler(final ShelfScheduler shelfScheduler) {
+        this.shelfScheduler = shelfScheduler;
+    }
+
+    /**
+     * Shelf read is started.
+     */
+    public void startShelf() {
+        shelfSeen = shelfAdded = shelfRetained = shelfMoved = 0;
+    }
+
+    /**
+     * Shelf read is finished, report churn of the shelf read to the scheduler.
+     */
+    public void finishShelf(final int shelf, final long readingCycleNumber) {
+        final int removed = Math.max(0, shelfTagsCount[shelf] - shelfRetained);
+        shelfScheduler.onShelfRead(shelf, readingCycleNumber, shelfSeen, shelfAdded, removed, shelfMoved);
+        shelfTagsCount[shelf] = shelfSeen;
+        shelfReadCycles[shelf] = readingCycleNumber;
+
+        if (IS_LOGGING_ENABLED) {
+            System.out.printf("Shelf %d churn: tags=%d, added=%d, removed=%d, moved=%d", shelf, shelfSeen, shelfAdded, removed, shelfMoved);
+            System.out.println();
+        }
+    }
+
+    /**
+     * Merge tag reads of the batch into its inventory map.
+     * The cache copies temperature tags, the batch owner returns all tags to the pool.
+     */
+    public void merge(final TagReadBatch batch) {
+        try { // Catch all unpredictable exceptions
+            merge(batch.getTagReads(), batch.getShelf(), batch.getReadingCycleNumber(),
+                    batch.getInventory(), batch.getPlan(), batch.getReadPower());
+        } catch (Throwable e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Merge tag reads into inventory. Rows are updated in place.
+     *
+     * @param plan read plan index, negative value to detect plan by tag antenna.
+     */
+    public void merge(final List<TagReadData> tagReads, final int antennaMultiplier,
+                      final long readingCycleNumber,
+                      final InventoryStore inventory, final int plan, final int readPower) {
+        if (IS_LOGGING_ENABLED) {
+            for (TagReadData tagRead : tagReads) {
+                System.out.printf("\t(hello) tag = %s\n", tagRead.toString());
+            }
+        }
+
+        int minRssi = -10;
+        Epc epc;
+
+        for (final TagReadData tagReadData : tagReads) {
+            epc = tagReadData.getEpc();
+
+            final int realAntenna = ((tagReadData.getAntenna() - 1) * (realAntennasCount / chipAntennasCount) + antennaMultiplier);
+            // Count statistics at the first and include all data which we get form ThingMagic.
+            if (tagReadData.getRssi() < minRssi) {
+                minRssi = tagReadData.getRssi();
+            }
+
+            tagReadData.setAntennaMultiplier(antennaMultiplier);
+
+            if (epc.getLength() != EPC_VALID_LENGTH) { // Discard EPC that is not of length 24
+                System.out.printf("EPC ignored: %s", epc);
+                System.out.println();
+            } else {
+
+                final int row = inventory.indexOf(epc);
+
+                if (row < 0 || readingCycleNumber > inventory.getReadingCycleNumber(row)) {
+                    countShelfChurn(inventory, row, tagReadData, realAntenna, antennaMultiplier);
+                }
+
+                if (row < 0
+                        || readingCycleNumber > inventory.getReadingCycleNumber(row)
+                        || tagReadData.getRssi() > inventory.getRssi(row)) {
+
+                    inventory.put(
+                            tagReadData,
+                            realAntenna,
+                            readingCycleNumber,
+                            readPower,
+                            plan < 0 ? getReadPlanIndex(tagReadData.getAntenna()) : plan,
+                            antennaMultiplier
+                    );
+                }
+
+            }
+
+            // Update reading cycle to clear obsolete data
+            tagReadCache.updateReadingCycle(readingCycleNumber);
+
+            // Handle temperature tag
+            if (tagReadData.isTemperatureTag()) {
+                tagReadCache.add(tagReadData);
+//                if (BuildConfig.DEBUG) {
+                if (IS_LOGGING_ENABLED)
+                    System.out.printf("Found a tag temperature[ antenna: %d multiplier: %d rssi %d ]", tagReadData.getAntenna(), antennaMultiplier, tagReadData.getRssi());
+                System.out.println();
+//                }
+            }
+        }
+
+        if (IS_LOGGING_ENABLED) System.out.printf("Min RSSI of the tags read above: %d", minRssi);
+        System.out.println();
+    }
+
+    /**
+     * Count churn of a tag found first time in the reading cycle.
+     *
+     * @param row row of the tag in inventory or -1 for a new tag.
+     */
+    private void countShelfChurn(final InventoryStore inventory, final int row, final TagReadData tagReadData,
+                                 final int realAntenna, final int shelf) {
+        shelfSeen++;
+        if (row < 0 || inventory.getShelf(row) != shelf
+                || inventory.getReadingCycleNumber(row) < shelfReadCycles[shelf]) {
+            shelfAdded++;
+            return;
+        }
+
+        shelfRetained++;
+        if (inventory.getRealAntenna(row) != realAntenna
+                || Math.abs(tagReadData.getRssi() - inventory.getRssi(row)) >= RSSI_MOVE_THRESHOLD) {
+            shelfMoved++;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package me.pantre.app.peripheral;
+
+/**
+ * Time source of the read loop. Simulated backends use virtual time.
+ */
+public interface ReaderClock {
+
+    /**
+     * @return current time in ms.
+     */
+    long currentTimeMillis();
+
+    /**
+     * Wait given time in ms.
+     */
+    void sleep(long ms);
+}
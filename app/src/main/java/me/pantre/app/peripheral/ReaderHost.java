@@ -0,0 +1,25 @@
+package me.pantre.app.peripheral;
+
+import java.io.File;
+
+/**
+ * Kiosk side of the reader driver. Switches shelves and keeps driver files, so the driver runs without Android,
+ * e.g. with simulated backends.
+ */
+public interface ReaderHost {
+
+    /**
+     * Choose a shelf using muxs.
+     */
+    void setShelf(int shelf);
+
+    /**
+     * Reader is connected, reading starts.
+     */
+    void onReaderConnected();
+
+    /**
+     * @return directory of driver files or null if they are not kept.
+     */
+    File getFilesDir();
+}
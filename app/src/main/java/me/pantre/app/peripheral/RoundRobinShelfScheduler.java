@@ -0,0 +1,25 @@
+package me.pantre.app.peripheral;
+
+/**
+ * Read all shelves in every reading cycle.
+ */
+public class RoundRobinShelfScheduler implements ShelfScheduler {
+    private final int[] shelves;
+
+    public RoundRobinShelfScheduler(final int shelvesCount) {
+        shelves = new int[shelvesCount];
+        for (int i = 0; i < shelvesCount; i++) {
+            shelves[i] = i + 1;
+        }
+    }
+
+    @Override
+    public int[] getShelvesForCycle(final long readingCycleNumber) {
+        return shelves;
+    }
+
+    @Override
+    public void onShelfRead(final int shelf, final long readingCycleNumber, final int tagsCount,
+                            final int added, final int removed, final int moved) {
+    }
+}
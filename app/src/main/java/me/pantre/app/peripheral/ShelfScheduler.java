@@ -0,0 +1,23 @@
+package me.pantre.app.peripheral;
+
+/**
+ * Decides which shelves are read in a reading cycle.
+ * Inventory items of shelves which are not read in a cycle keep reading cycle number of the last shelf read.
+ */
+public interface ShelfScheduler {
+
+    /**
+     * @return shelves to read in the reading cycle, in order.
+     */
+    int[] getShelvesForCycle(long readingCycleNumber);
+
+    /**
+     * Shelf was read. Counts are compared to the previous read of the shelf.
+     *
+     * @param tagsCount count of tags found on the shelf.
+     * @param added     count of tags which are new on the shelf.
+     * @param removed   count of tags which are not found on the shelf anymore.
+     * @param moved     count of tags which changed antenna or RSSI.
+     */
+    void onShelfRead(int shelf, long readingCycleNumber, int tagsCount, int added, int removed, int moved);
+}
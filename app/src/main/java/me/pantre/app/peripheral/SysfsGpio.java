@@ -0,0 +1,157 @@
+package me.pantre.app.peripheral;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * GPIO backend which keeps sysfs value files of the lines open for the life of the process.
+ * Setting a line is one positional write without process spawn.
+ * <p>
+ * Chip number is the number of /dev/gpiochipN. Its line base is found by sysfs layout:
+ * root/gpiochipBASE/device/gpiochipN and root/gpiochipBASE/base. Root can be a fake directory with the same layout.
+ */
+public class SysfsGpio implements GpioBackend {
+    private static final boolean IS_LOGGING_ENABLED = true;
+
+    public static final String DEFAULT_SYSFS_ROOT = "/sys/class/gpio";
+
+    private static final ByteBuffer VALUE_LOW = ByteBuffer.wrap(new byte[]{'0'});
+    private static final ByteBuffer VALUE_HIGH = ByteBuffer.wrap(new byte[]{'1'});
+
+    private final File root;
+
+    /**
+     * Opened value files, key is chip and line.
+     */
+    private final Map<Long, FileChannel> valueChannels = new HashMap<>();
+
+    private long lastSwitchLatency = 0;
+    private long maxSwitchLatency = 0;
+    private long totalSwitchLatency = 0;
+    private long switchCount = 0;
+
+    public SysfsGpio(final File root) {
+        this.root = root;
+    }
+
+    /**
+     * Open value files of the lines, export them if needed.
+     *
+     * @throws IOException if any line can't be opened.
+     */
+    public void open(final int[] chips, final int[] lines) throws IOException {
+        for (int i = 0; i < chips.length; i++) {
+            getValueChannel(chips[i], lines[i]);
+        }
+    }
+
+    @Override
+    public synchronized void setGpioValue(final int chip, final int line, final int value) {
+        try {
+            write(getValueChannel(chip, line), value);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public synchronized void setGpioValues(final int[] chips, final int[] lines, final int[] values) {
+        final long start = System.nanoTime();
+        try {
+            for (int i = 0; i < chips.length; i++) {
+                write(getValueChannel(chips[i], lines[i]), values[i]);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        lastSwitchLatency = System.nanoTime() - start;
+        maxSwitchLatency = Math.max(maxSwitchLatency, lastSwitchLatency);
+        totalSwitchLatency += lastSwitchLatency;
+        switchCount++;
+    }
+
+    @Override
+    public synchronized long getLastSwitchLatency() {
+        return lastSwitchLatency;
+    }
+
+    public synchronized long getMaxSwitchLatency() {
+        return maxSwitchLatency;
+    }
+
+    public synchronized long getAverageSwitchLatency() {
+        return switchCount == 0 ? 0 : totalSwitchLatency / switchCount;
+    }
+
+    /**
+     * Close all value files.
+     */
+    public synchronized void close() {
+        for (final FileChannel channel : valueChannels.values()) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        valueChannels.clear();
+    }
+
+    private void write(final FileChannel channel, final int value) throws IOException {
+        final ByteBuffer buffer = (value == 0 ? VALUE_LOW : VALUE_HIGH).duplicate();
+        channel.write(buffer, 0);
+    }
+
+    private FileChannel getValueChannel(final int chip, final int line) throws IOException {
+        final long key = ((long) chip << 32) | line;
+        FileChannel channel = valueChannels.get(key);
+        if (channel == null) {
+            final int gpio = getChipBase(chip) + line;
+            final File gpioDir = new File(root, "gpio" + gpio);
+            if (!gpioDir.exists()) {
+                writeString(new File(root, "export"), String.valueOf(gpio));
+            }
+            writeString(new File(gpioDir, "direction"), "out");
+
+            channel = new RandomAccessFile(new File(gpioDir, "value"), "rw").getChannel();
+            valueChannels.put(key, channel);
+
+            if (IS_LOGGING_ENABLED) {
+                System.out.printf("GPIO gpiochip%d line %d opened as gpio%d", chip, line, gpio);
+                System.out.println();
+            }
+        }
+        return channel;
+    }
+
+    /**
+     * @return number of the first line of /dev/gpiochipN in sysfs.
+     */
+    private int getChipBase(final int chip) throws IOException {
+        final File[] chipDirs = root.listFiles((dir, name) -> name.startsWith("gpiochip"));
+        if (chipDirs != null) {
+            for (final File chipDir : chipDirs) {
+                if (new File(chipDir, "device/gpiochip" + chip).exists()) {
+                    final String base = new String(Files.readAllBytes(new File(chipDir, "base").toPath()), StandardCharsets.US_ASCII);
+                    return Integer.parseInt(base.trim());
+                }
+            }
+        }
+        throw new IOException("gpiochip" + chip + " is not found in " + root);
+    }
+
+    private static void writeString(final File file, final String value) throws IOException {
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write(value);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package me.pantre.app.peripheral;
+
+/**
+ * Wall clock. Sleep ignores interrupts like android.os.SystemClock.sleep().
+ */
+public final class SystemReaderClock implements ReaderClock {
+    public static final SystemReaderClock INSTANCE = new SystemReaderClock();
+
+    private SystemReaderClock() {
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public void sleep(final long ms) {
+        long start = System.currentTimeMillis();
+        long duration = ms;
+        boolean interrupted = false;
+        while (duration > 0) {
+            try {
+                Thread.sleep(duration);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+            duration = start + ms - System.currentTimeMillis();
+        }
+
+        if (interrupted) {
+            // Restore interrupt status.
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package me.pantre.app.peripheral;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import me.pantre.app.model.InventoryStore;
+import me.pantre.app.peripheral.model.TagReadData;
+
+/**
+ * Tags of one read which are passed from the radio thread to the merge thread.
+ * Batches are reused, tag reads are returned to the pool by the radio thread when batch is recycled.
+ */
+class TagReadBatch {
+    private final List<TagReadData> tagReads = new ArrayList<>();
+    private int shelf;
+    private long readingCycleNumber;
+    /**
+     * Read plan index, negative value to detect plan by tag antenna.
+     */
+    private int plan;
+    private int readPower;
+    private InventoryStore inventory;
+    /**
+     * Result of merge task.
+     */
+    private Future<?> mergeFuture;
+
+    void set(final int shelf, final long readingCycleNumber, final int plan, final int readPower,
+             final InventoryStore inventory) {
+        this.shelf = shelf;
+        this.readingCycleNumber = readingCycleNumber;
+        this.plan = plan;
+        this.readPower = readPower;
+        this.inventory = inventory;
+    }
+
+    void clear() {
+        tagReads.clear();
+        inventory = null;
+        mergeFuture = null;
+    }
+
+    List<TagReadData> getTagReads() {
+        return tagReads;
+    }
+
+    int getShelf() {
+        return shelf;
+    }
+
+    long getReadingCycleNumber() {
+        return readingCycleNumber;
+    }
+
+    int getPlan() {
+        return plan;
+    }
+
+    int getReadPower() {
+        return readPower;
+    }
+
+    InventoryStore getInventory() {
+        return inventory;
+    }
+
+    Future<?> getMergeFuture() {
+        return mergeFuture;
+    }
+
+    void setMergeFuture(final Future<?> mergeFuture) {
+        this.mergeFuture = mergeFuture;
+    }
+}
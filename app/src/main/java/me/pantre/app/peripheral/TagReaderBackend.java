@@ -0,0 +1,136 @@
+package me.pantre.app.peripheral;
+
+import com.thingmagic.ConcurrentObjectPool;
+
+import java.util.List;
+
+import me.pantre.app.model.Epc;
+import me.pantre.app.model.RfidBand;
+import me.pantre.app.peripheral.model.TagReadData;
+import me.pantre.app.peripheral.model.TagReadProjection;
+
+/**
+ * RFID reader used by {@link ThingMagicDriver}.
+ * IMPORTANT: Tag reads are pooled objects, they are returned by {@link #returnObject(TagReadData)}.
+ */
+public interface TagReaderBackend {
+
+    /**
+     * Connect to the reader.
+     *
+     * @return true if connected.
+     */
+    boolean connect(String licenseKey, RfidBand rfidBand);
+
+    boolean isConnected();
+
+    /**
+     * @return clock of the reader.
+     */
+    ReaderClock getClock();
+
+    /**
+     * Create one read plan for each chip antenna. Read plan i reads antenna i + 1.
+     */
+    void createReadPlans(int chipAntennasCount);
+
+    int getReadPlanCount();
+
+    void paramSetReadPlan(int readPlanIndex) throws Exception;
+
+    /**
+     * Set one weighted read plan with all chip antennas.
+     *
+     * @param weights weight for each read plan index.
+     */
+    void paramSetMultiReadPlan(int[] weights) throws Exception;
+
+    void paramSetTari(String value) throws Exception;
+
+    void paramSetBlf(String value) throws Exception;
+
+    void paramSetTagEncoding(String value) throws Exception;
+
+    void paramSetQAlgorithm(String value) throws Exception;
+
+    void paramSetSession(String value) throws Exception;
+
+    void paramSetTarget(String value) throws Exception;
+
+    TagReadData[] read(long duration) throws Exception;
+
+    /**
+     * Read tags with current read plan and add them to the list.
+     */
+    void read(long duration, List<TagReadData> tagReads) throws Exception;
+
+    /**
+     * Start reading with current read plan.
+     */
+    void startReading() throws Exception;
+
+    /**
+     * Add tags read so far to the list.
+     */
+    void pollReads(List<TagReadData> tagReads);
+
+    /**
+     * Stop reading and add the rest of tags to the list.
+     */
+    void stopReading(List<TagReadData> tagReads);
+
+    /**
+     * Start reading with all chip antennas, RF duty cycle is controlled by the reader.
+     */
+    void startContinuousReading(long asyncOnTime, long asyncOffTime) throws Exception;
+
+    void stopContinuousReading();
+
+    boolean isContinuousReading();
+
+    /**
+     * Collect tags read by continuous reading during a time window and add them to the list.
+     */
+    void readWindow(long duration, long settleTime, List<TagReadData> tagReads) throws Exception;
+
+    TagReadData[] readTemperatureCode(int antenna, long readDuration, TagReadData tagReadData) throws Exception;
+
+    TagReadData[] readTemperatureCalibration(Epc epc, int antenna, long readDuration) throws Exception;
+
+    /**
+     * Read sensor codes of all sensor tags on the antennas in one inventory and add them to the list.
+     * Tag reads carry moisture, on-chip RSSI and temperature code words as data.
+     */
+    void readSensorCodes(int[] antennas, long readDuration, List<TagReadData> tagReads) throws Exception;
+
+    /**
+     * Read calibration of all sensor tags on the antennas in one inventory and add them to the list.
+     * Tag reads carry CRC and calibration words as data, like {@link #readTemperatureCalibration(Epc, int, long)}.
+     */
+    void readSensorCalibration(int[] antennas, long readDuration, List<TagReadData> tagReads) throws Exception;
+
+    void returnObject(TagReadData o);
+
+    /**
+     * Fields which consumers read from inventory tag reads. Temperature reads add memory data.
+     */
+    void setTagReadProjection(TagReadProjection projection);
+
+    TagReadProjection getTagReadProjection();
+
+    /**
+     * @return pool of tag reads, for metrics and leak reports.
+     */
+    ConcurrentObjectPool<TagReadData> getTagReadDataPool();
+
+    /**
+     * @return radio temperature in degrees C or null if it can't be read.
+     */
+    Integer getRadioTemperature();
+
+    Integer getMaxReadPower();
+
+    Integer getReadPower();
+
+    void setReadPower(Integer power);
+}
@@ -0,0 +1,102 @@
+package me.pantre.app.peripheral;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import me.pantre.app.model.Epc;
+import me.pantre.app.peripheral.model.TemperatureRollup;
+import me.pantre.app.peripheral.model.TemperatureSample;
+import me.pantre.app.peripheral.model.TemperatureSeries;
+
+/**
+ * Temperature history of sensor tags, see {@link TemperatureSeries}. Samples are added by the read loop,
+ * queries may come from other threads and lock only the series they read.
+ * <p>
+ * Count of series is bounded, the series updated longest ago is dropped for a new tag.
+ */
+public class TemperatureHistory {
+    /**
+     * Default count of series, about 125 KB each.
+     */
+    public static final int DEFAULT_MAX_SERIES_COUNT = 32;
+
+    private final int maxSeriesCount;
+    private final Map<Epc, TemperatureSeries> series = new ConcurrentHashMap<>();
+
+    public TemperatureHistory() {
+        this(DEFAULT_MAX_SERIES_COUNT);
+    }
+
+    public TemperatureHistory(final int maxSeriesCount) {
+        if (maxSeriesCount <= 0) {
+            throw new IllegalArgumentException("Wrong temperature history size");
+        }
+        this.maxSeriesCount = maxSeriesCount;
+    }
+
+    /**
+     * Add temperature of the tag. Should be called from one thread.
+     *
+     * @return false if the sample is rejected.
+     */
+    public boolean add(final Epc epc, final long time, final double temperature) {
+        TemperatureSeries tagSeries = series.get(epc);
+        if (tagSeries == null) {
+            if (series.size() >= maxSeriesCount) {
+                dropLeastRecentlyUpdated();
+            }
+            tagSeries = new TemperatureSeries();
+            series.put(epc, tagSeries);
+        }
+        return tagSeries.add(time, temperature);
+    }
+
+    /**
+     * @return series of the tag or null if it has no samples.
+     */
+    public TemperatureSeries getSeries(final Epc epc) {
+        return series.get(epc);
+    }
+
+    /**
+     * @return tags with series.
+     */
+    public Set<Epc> getEpcs() {
+        return series.keySet();
+    }
+
+    /**
+     * @return the latest temperature of the tag or null if it is not known.
+     */
+    public TemperatureSample getLatest(final Epc epc) {
+        final TemperatureSeries tagSeries = series.get(epc);
+        return tagSeries == null ? null : tagSeries.getLatest();
+    }
+
+    /**
+     * @return min/max/mean temperature of the tag in the range or null if it is not known.
+     */
+    public TemperatureRollup getSummary(final Epc epc, final long from, final long to) {
+        final TemperatureSeries tagSeries = series.get(epc);
+        return tagSeries == null ? null : tagSeries.getSummary(from, to);
+    }
+
+    public int size() {
+        return series.size();
+    }
+
+    private void dropLeastRecentlyUpdated() {
+        Epc leastRecentlyUpdated = null;
+        long minTime = Long.MAX_VALUE;
+        for (Map.Entry<Epc, TemperatureSeries> entry : series.entrySet()) {
+            final TemperatureSample latest = entry.getValue().getLatest();
+            final long time = latest == null ? Long.MIN_VALUE : latest.getTime();
+            if (leastRecentlyUpdated == null || time < minTime) {
+                minTime = time;
+                leastRecentlyUpdated = entry.getKey();
+            }
+        }
+        series.remove(leastRecentlyUpdated);
+    }
+}
@@ -0,0 +1,116 @@
+package me.pantre.app.peripheral;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import me.pantre.app.model.Epc;
+import me.pantre.app.peripheral.model.TemperatureKalmanFilter;
+
+/**
+ * Decides which sensor tags need a temperature read, see {@link TemperatureKalmanFilter}. A tag is read when
+ * uncertainty of its estimate passes the threshold, when its last measurement was rejected or when it was not
+ * read for too long. A sudden change of one tag, e.g. an open door, makes all tags due.
+ * <p>
+ * Not thread safe.
+ */
+public class TemperatureSampler {
+    /**
+     * Accuracy of a temperature read, 0.3 degree.
+     */
+    public static final double DEFAULT_MEASUREMENT_VARIANCE = 0.09;
+    /**
+     * Process noise of a steady fridge, 0.02 degree per minute.
+     */
+    public static final double DEFAULT_MIN_PROCESS_NOISE = 0.0004;
+    /**
+     * Process noise of an open door, 0.5 degree per minute.
+     */
+    public static final double DEFAULT_MAX_PROCESS_NOISE = 0.25;
+    public static final double DEFAULT_OUTLIER_SIGMAS = 4;
+    public static final int DEFAULT_MAX_CONSECUTIVE_OUTLIERS = 2;
+    /**
+     * Difference from the estimate which is a sudden change.
+     */
+    public static final double CHANGE_SIGMAS = 3;
+    /**
+     * Uncertainty which needs a read, 0.5 degree.
+     */
+    public static final double DEFAULT_MAX_VARIANCE = 0.25;
+    public static final long DEFAULT_MAX_READ_INTERVAL = 5 * 60 * 1000L;
+
+    private final double maxVariance;
+    private final long maxReadInterval;
+    private final Map<Epc, TemperatureKalmanFilter> filters = new HashMap<>();
+
+    /**
+     * Time of the last sudden change, tags not read since then are due.
+     */
+    private long changeTime = Long.MIN_VALUE;
+    private long skippedCount = 0;
+    private long rejectedCount = 0;
+
+    public TemperatureSampler() {
+        this(DEFAULT_MAX_VARIANCE, DEFAULT_MAX_READ_INTERVAL);
+    }
+
+    public TemperatureSampler(final double maxVariance, final long maxReadInterval) {
+        this.maxVariance = maxVariance;
+        this.maxReadInterval = maxReadInterval;
+    }
+
+    /**
+     * @return true if temperature of the tag should be read now.
+     */
+    public boolean isReadDue(final Epc epc, final long now) {
+        final TemperatureKalmanFilter filter = filters.get(epc);
+        if (filter == null || filter.hasPendingOutlier() || filter.getTime() < changeTime
+                || now - filter.getTime() >= maxReadInterval || filter.getVariance(now) > maxVariance) {
+            return true;
+        }
+        skippedCount++;
+        return false;
+    }
+
+    /**
+     * Add temperature read of the tag.
+     *
+     * @return false if the temperature is rejected as an outlier.
+     */
+    public boolean update(final Epc epc, final long now, final double temperature) {
+        TemperatureKalmanFilter filter = filters.get(epc);
+        if (filter == null) {
+            filter = new TemperatureKalmanFilter(DEFAULT_MEASUREMENT_VARIANCE, DEFAULT_MIN_PROCESS_NOISE,
+                    DEFAULT_MAX_PROCESS_NOISE, DEFAULT_OUTLIER_SIGMAS, DEFAULT_MAX_CONSECUTIVE_OUTLIERS);
+            filters.put(epc, filter);
+        }
+        if (Math.abs(filter.getInnovationSigmas(now, temperature)) > CHANGE_SIGMAS) {
+            changeTime = now;
+        }
+        if (!filter.update(now, temperature)) {
+            rejectedCount++;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return filter of the tag or null if its temperature was not read.
+     */
+    public TemperatureKalmanFilter getFilter(final Epc epc) {
+        return filters.get(epc);
+    }
+
+    /**
+     * @return count of reads skipped because the estimate was certain enough.
+     */
+    public long getSkippedCount() {
+        return skippedCount;
+    }
+
+    /**
+     * @return count of temperatures rejected as outliers.
+     */
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+}
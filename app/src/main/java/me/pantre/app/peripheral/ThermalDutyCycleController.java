@@ -0,0 +1,149 @@
+package me.pantre.app.peripheral;
+
+/**
+ * Closed loop RF duty cycle controller driven by module radio temperature.
+ * Keeps the longest RF on time while the module is cool, backs off smoothly when it heats up
+ * toward thermal shutdown and ramps up again when it cools down.
+ */
+public class ThermalDutyCycleController {
+    /**
+     * Default values. Temperatures are in degrees C, times are in ms.
+     */
+    public static final int DEFAULT_BACKOFF_TEMPERATURE = 55,
+            DEFAULT_MAX_TEMPERATURE = 70;
+    public static final double DEFAULT_MIN_DUTY_CYCLE = 0.2,
+            DEFAULT_MAX_DUTY_CYCLE = 1.0;
+    public static final int DEFAULT_POLL_CYCLES = 5;
+
+    /**
+     * Max duty cycle change per update. Back off faster than ramp up.
+     */
+    private static final double DUTY_CYCLE_STEP_DOWN = 0.2,
+            DUTY_CYCLE_STEP_UP = 0.05;
+    /**
+     * Poll interval is doubled after each failed poll, up to 2^n poll intervals.
+     */
+    private static final int MAX_POLL_BACKOFF_SHIFT = 4;
+
+    /**
+     * RF on time of one read.
+     */
+    private final long readDuration;
+    /**
+     * Temperature where duty cycle starts to go down from max.
+     */
+    private final int backoffTemperature;
+    /**
+     * Temperature where duty cycle is min. Must be below thermal shutdown of the module.
+     */
+    private final int maxTemperature;
+    private final double minDutyCycle;
+    private final double maxDutyCycle;
+    /**
+     * Poll temperature every n reading cycles.
+     */
+    private final int pollCycles;
+
+    private double dutyCycle;
+    private int lastTemperature = Integer.MIN_VALUE;
+    private int failedPolls = 0;
+    private long nextPollCycle = Long.MIN_VALUE;
+
+    public ThermalDutyCycleController(final long readDuration) {
+        this(readDuration, DEFAULT_BACKOFF_TEMPERATURE, DEFAULT_MAX_TEMPERATURE,
+                DEFAULT_MIN_DUTY_CYCLE, DEFAULT_MAX_DUTY_CYCLE, DEFAULT_POLL_CYCLES);
+    }
+
+    public ThermalDutyCycleController(final long readDuration, final int backoffTemperature, final int maxTemperature,
+                                      final double minDutyCycle, final double maxDutyCycle, final int pollCycles) {
+        if (backoffTemperature >= maxTemperature) {
+            throw new IllegalArgumentException("backoffTemperature should be less than maxTemperature");
+        }
+        if (minDutyCycle <= 0 || minDutyCycle > maxDutyCycle || maxDutyCycle > 1) {
+            throw new IllegalArgumentException("Wrong duty cycle range");
+        }
+        this.readDuration = readDuration;
+        this.backoffTemperature = backoffTemperature;
+        this.maxTemperature = maxTemperature;
+        this.minDutyCycle = minDutyCycle;
+        this.maxDutyCycle = maxDutyCycle;
+        this.pollCycles = Math.max(1, pollCycles);
+        // Start careful, the module temperature is unknown.
+        this.dutyCycle = minDutyCycle;
+    }
+
+    /**
+     * @return true if temperature should be polled in this reading cycle.
+     */
+    public boolean shouldPoll(final long readingCycleNumber) {
+        if (readingCycleNumber < nextPollCycle) {
+            return false;
+        }
+        return lastTemperature == Integer.MIN_VALUE || failedPolls > 0 || readingCycleNumber % pollCycles == 0;
+    }
+
+    /**
+     * Temperature could not be read. If it was never read, duty cycle goes to max, as without the controller.
+     * Next poll is backed off.
+     */
+    public void onPollFailed(final long readingCycleNumber) {
+        if (lastTemperature == Integer.MIN_VALUE) {
+            dutyCycle = maxDutyCycle;
+        }
+        nextPollCycle = readingCycleNumber + ((long) pollCycles << Math.min(failedPolls, MAX_POLL_BACKOFF_SHIFT));
+        failedPolls++;
+    }
+
+    /**
+     * Update duty cycle by the current radio temperature.
+     */
+    public void update(final int temperature) {
+        final boolean isFirstUpdate = lastTemperature == Integer.MIN_VALUE;
+        lastTemperature = temperature;
+        failedPolls = 0;
+
+        final double targetDutyCycle;
+        if (temperature <= backoffTemperature) {
+            targetDutyCycle = maxDutyCycle;
+        } else if (temperature >= maxTemperature) {
+            targetDutyCycle = minDutyCycle;
+        } else {
+            final double ratio = (double) (temperature - backoffTemperature) / (maxTemperature - backoffTemperature);
+            targetDutyCycle = maxDutyCycle - ratio * (maxDutyCycle - minDutyCycle);
+        }
+
+        if (isFirstUpdate) {
+            dutyCycle = targetDutyCycle;
+        } else if (targetDutyCycle < dutyCycle) {
+            dutyCycle = Math.max(targetDutyCycle, dutyCycle - DUTY_CYCLE_STEP_DOWN);
+        } else {
+            dutyCycle = Math.min(targetDutyCycle, dutyCycle + DUTY_CYCLE_STEP_UP);
+        }
+    }
+
+    public long getReadDuration() {
+        return readDuration;
+    }
+
+    /**
+     * @return RF off time after each read to keep the duty cycle.
+     */
+    public long getAntennaSleep() {
+        return getAntennaSleep(readDuration);
+    }
+
+    /**
+     * @return RF off time after a read with the given RF on time to keep the duty cycle.
+     */
+    public long getAntennaSleep(final long onTime) {
+        return Math.round(onTime * (1 - dutyCycle) / dutyCycle);
+    }
+
+    public double getDutyCycle() {
+        return dutyCycle;
+    }
+
+    public int getLastTemperature() {
+        return lastTemperature;
+    }
+}
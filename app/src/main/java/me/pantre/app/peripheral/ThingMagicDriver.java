@@ -1,22 +1,34 @@
 package me.pantre.app.peripheral;
 
-import android.content.Context;
-import android.os.Handler;
-import android.os.SystemClock;
-import android.widget.Toast;
-
 import com.thingmagic.ReaderException;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
-import me.pantre.app.bean.peripheral.DragonFruitFacade;
+import me.pantre.app.model.Epc;
+import me.pantre.app.model.InventoryChange;
+import me.pantre.app.model.InventoryDelta;
 import me.pantre.app.model.InventoryReadItem;
+import me.pantre.app.model.InventorySnapshot;
+import me.pantre.app.model.InventoryStore;
 import me.pantre.app.model.RfidBand;
+import me.pantre.app.model.VersionedInventory;
+import me.pantre.app.peripheral.model.SensorReading;
 import me.pantre.app.peripheral.model.TagReadData;
 import me.pantre.app.peripheral.model.TagReadDataCache;
+import me.pantre.app.peripheral.model.TagReadProjection;
 import me.pantre.app.peripheral.model.TagTemperatureReadData;
 
 /**
@@ -50,6 +62,11 @@ public class ThingMagicDriver {
      */
     private static final String LICENSE_KEY = "acb424f2ae5feb3494e7d52a73dbb026";
 
+    /**
+     * File of the calibration store in the app files directory.
+     */
+    private static final String CALIBRATION_STORE_FILE_NAME = "sensor_calibration.bin";
+
     /**
      * Read duration value for half and max duty cycles (in ms).
      */
@@ -62,15 +79,37 @@ public class ThingMagicDriver {
             ANTENNA_SLEEP_LONG = 500;
 
     /**
-     * EPC length filtering value
-     **/
-    private static final int EPC_VALID_LENGTH = 24;
+     * Time to wait for RF switch after shelf change in continuous reading mode (in ms).
+     */
+    private static final long SHELF_SETTLE_TIME = 20;
 
     /**
-     * ThingMagic reader wrapper. Help to read date from device.
+     * Minimal weight of antenna in weighted read plan, so idle antenna still gets read time.
      */
-    private final DragonfruitThingMagicWrapper thingMagicReaderWrapper;
-    private final DragonFruitFacade dragonFruitFacade;
+    private static final int MIN_PLAN_WEIGHT = 10;
+
+    /**
+     * Smoothing factor of antenna tag counts from recent cycles.
+     */
+    private static final double PLAN_WEIGHT_SMOOTHING = 0.3;
+
+    /**
+     * Max count of reads waiting for merge, radio thread waits for the merge thread above it.
+     */
+    private static final int MAX_PENDING_BATCHES = 2;
+
+    /**
+     * Reader backend. Help to read date from device.
+     */
+    private final TagReaderBackend readerBackend;
+    /**
+     * Clock of the reader backend.
+     */
+    private final ReaderClock clock;
+    /**
+     * Switches shelves and keeps driver files.
+     */
+    private final ReaderHost readerHost;
 
     /**
      * Sleep after reading or not.
@@ -84,6 +123,10 @@ public class ThingMagicDriver {
      * How many real antennas we have.
      */
     private final int realAntennasCount;
+    /**
+     * Chip antennas 1..chipAntennasCount, read plan of sensor scans.
+     */
+    private final int[] chipAntennas;
 
     /**
      * Value in ms for each individual antenna read.
@@ -94,61 +137,185 @@ public class ThingMagicDriver {
      */
     private long antennaSleep = ANTENNA_SLEEP_SHORT; //
 
+    /**
+     * Controls read duration and antenna sleep by radio temperature. Null for fixed duty cycle.
+     */
+    private ThermalDutyCycleController thermalController = null;
+    /**
+     * RF on time of the last read (in ms).
+     */
+    private long lastReadOnTime = 0;
+
     private long readingCycleNumber = 0;
 
+    /**
+     * Keep the module reading all the time and cut tags into shelf windows on the host.
+     */
+    private boolean continuousReading = false;
+
+    /**
+     * Read sensor codes of all sensor tags of a shelf in one inventory instead of a read per tag.
+     */
+    private boolean sensorScan = false;
+    /**
+     * Read calibration of new sensor tags with one inventory per shelf instead of a read per tag.
+     */
+    private boolean calibrationScan = false;
+    /**
+     * Read temperature of a sensor tag only when its estimate is uncertain, reject outlier temperatures.
+     */
+    private boolean adaptiveTemperatureSampling = false;
+
+    /**
+     * Read both chip antennas of the shelf with one weighted read plan.
+     */
+    private boolean weightedReadPlan = false;
+
+    /**
+     * Smoothed count of tags seen by each chip antenna of each shelf.
+     */
+    private final double[][] antennaTagCounts;
+
+    /**
+     * Decides which shelves are read in each cycle.
+     */
+    private ShelfScheduler shelfScheduler = new RoundRobinShelfScheduler(SHELVES_COUNT);
+
     /**
      * Cache of tags found during reading cycle
      */
-    private final TagReadDataCache tagReadCache = new TagReadDataCache();
+    private final TagReadDataCache tagReadCache;
+
+    /**
+     * Merges reads into inventory on the merge thread while radio thread reads next shelf or plan.
+     */
+    private final InventoryMerger inventoryMerger;
+    private final ExecutorService mergeExecutor = Executors.newSingleThreadExecutor(r -> {
+        final Thread thread = new Thread(r, "inventory-merge");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     /**
-     * Inventory map.
+     * Read batches. Used by radio thread only.
      */
-    private final ConcurrentHashMap<String, InventoryReadItem> inventoryReadMap = new ConcurrentHashMap<>();
+    private final Deque<TagReadBatch> freeBatches = new ArrayDeque<>();
+    private final Deque<TagReadBatch> pendingBatches = new ArrayDeque<>();
+
+    /**
+     * Stop reads early when no new EPC comes. Null to read for fixed duration.
+     */
+    private AdaptiveDwellController dwellController = null;
+
+    /**
+     * EPCs found during the current read, to detect new ones.
+     */
+    private final Set<Epc> readEpcs = new HashSet<>();
+
+    /**
+     * Inventory published once per reading cycle. Next version is written by the merge thread.
+     */
+    private final VersionedInventory inventory = new VersionedInventory();
+
+    /**
+     * Finds inventory changes of each cycle. Used by radio thread only.
+     */
+    private final InventoryDeltaTracker deltaTracker = new InventoryDeltaTracker(SHELVES_COUNT);
+    /**
+     * Evicts tags absent for too long. Null to keep all tags. Used by radio thread only.
+     */
+    private InventoryAging inventoryAging = new InventoryAging();
+    /**
+     * Shelves read completely in the current cycle. Used by radio thread only.
+     */
+    private final int[] cycleShelves = new int[SHELVES_COUNT + 1];
+
+    /**
+     * Receive inventory changes on the event thread, so slow listeners do not delay reading.
+     */
+    private final List<InventoryListener> inventoryListeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService eventExecutor = Executors.newSingleThreadExecutor(r -> {
+        final Thread thread = new Thread(r, "inventory-events");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     /**
      * Store calibration data to avoid reread. They are predefined by manufacturer.
      */
-    private final Map<String, TagTemperatureReadData> calibrationMap = new HashMap<>();
+    private final Map<Epc, TagTemperatureReadData> calibrationMap = new HashMap<>();
+    /**
+     * Calibration kept across restarts, or null. Calibration map is filled from it on misses.
+     */
+    private CalibrationStore calibrationStore = null;
+    /**
+     * Last sensor reading of each sensor tag found by sensor scan.
+     */
+    private final Map<Epc, SensorReading> sensorReadings = new ConcurrentHashMap<>();
+    /**
+     * Temperature of sensor tags over time.
+     */
+    private final TemperatureHistory temperatureHistory = new TemperatureHistory();
+    /**
+     * Temperature estimates of sensor tags, used by adaptive temperature sampling.
+     */
+    private final TemperatureSampler temperatureSampler = new TemperatureSampler();
 
-    public ThingMagicDriver(DragonFruitFacade dragonFruitFacade, final DragonfruitThingMagicWrapper thingMagicReaderWrapper,
+    public ThingMagicDriver(final ReaderHost readerHost, final TagReaderBackend readerBackend,
                             final boolean shouldSleepAfterReading, final int chipAntennasCount, final int realAntennasCount) {
         System.out.printf("ThingMagicDriver started. Antennas: %d-%d", chipAntennasCount, realAntennasCount);
         System.out.println();
-        this.dragonFruitFacade = dragonFruitFacade;
-        this.thingMagicReaderWrapper = thingMagicReaderWrapper;
+        this.readerHost = readerHost;
+        this.readerBackend = readerBackend;
+        this.clock = readerBackend.getClock();
 
         this.shouldSleepAfterReading = shouldSleepAfterReading;
         this.chipAntennasCount = chipAntennasCount;
         this.realAntennasCount = realAntennasCount;
+        this.chipAntennas = new int[chipAntennasCount];
+        for (int i = 0; i < chipAntennasCount; i++) {
+            chipAntennas[i] = i + 1;
+        }
+        this.antennaTagCounts = new double[SHELVES_COUNT + 1][chipAntennasCount];
+        // Cache keeps own copies of temperature tags, batch reads go back to the pool after merge.
+        this.tagReadCache = new TagReadDataCache();
+        this.inventoryMerger = new InventoryMerger(chipAntennasCount, realAntennasCount, SHELVES_COUNT,
+                tagReadCache, shelfScheduler);
 
         // Initialize arrays.
-        thingMagicReaderWrapper.createReadPlans(chipAntennasCount);
+        readerBackend.createReadPlans(chipAntennasCount);
+        // Inventory and merger use only these fields, temperature reads add memory data.
+        readerBackend.setTagReadProjection(TagReadProjection.INVENTORY);
     }
 
     /**
      * Connect to the device.
      */
-    public void connect(final Context context) {
+    public void connect() {
         boolean connectionFailed = false;
 
         try {
-            boolean isOldThingMagicModule = thingMagicReaderWrapper.initializeUsbDevice(context);
-            if (thingMagicReaderWrapper.deviceHasPermission) {
-                thingMagicReaderWrapper.createReader();
-                System.out.printf("Trying to connect ThingMagic");
-                System.out.println();
-                thingMagicReaderWrapper.connect(LICENSE_KEY, RfidBand.US902, isOldThingMagicModule);
-            }
+            readerBackend.connect(LICENSE_KEY, RfidBand.US902);
 
-            if (thingMagicReaderWrapper.isConnected()) {
+            if (readerBackend.isConnected()) {
                 System.out.printf("Already connected to ThingMagic");
                 System.out.println();
 
-                // Show a toast.
-                final Handler h = new Handler(context.getMainLooper());
-                h.post(() -> Toast.makeText(context, "PD3 ready", Toast.LENGTH_LONG).show());
+                readerHost.onReaderConnected();
+
+                final File filesDir = readerHost.getFilesDir();
+                if (calibrationStore == null && filesDir != null) {
+                    try {
+                        setCalibrationStore(CalibrationStore.open(
+                                new File(filesDir, CALIBRATION_STORE_FILE_NAME), CalibrationStore.DEFAULT_CAPACITY));
+                    } catch (IOException e) {
+                        // Calibration is read over the air.
+                        e.printStackTrace();
+                    }
+                }
 
+                // Duty cycle should be set before reading, startReading() does not return.
+                setThermalDutyCycle();
                 startReading();
             } else {
                 // Connection failed. Giving up.
@@ -161,9 +328,8 @@ public class ThingMagicDriver {
             connectionFailed = true;
         }
 
-        if (!connectionFailed) {
-            // TAB-642 start with half duty cycle
-            setHalfDutyCycle();
+        if (connectionFailed) {
+            System.out.println("TM reading was not started.");
         }
     }
 
@@ -175,6 +341,24 @@ public class ThingMagicDriver {
         setupPreferences();
         //noinspection InfiniteLoopStatement
         while (true) {
+            readCycle();
+        }
+    }
+
+    /**
+     * Run given count of reading cycles on a connected reader. Used to measure the read loop with simulated backend.
+     */
+    public void runReadingCycles(final int cyclesCount) {
+        setupPreferences();
+        for (int i = 0; i < cyclesCount; i++) {
+            readCycle();
+        }
+    }
+
+    /**
+     * Read all scheduled shelves, apply readings and read temperature tags.
+     */
+    private void readCycle() {
 //            Gen2.Select tempsensorEnable = Common.createGen2Select(4, 5, Gen2.Bank.USER, 0xE0, 0, new byte[]{});
 //            Gen2.Select ocrssiMinFilter = Common.createGen2Select(4, 0, Gen2.Bank.USER, 0xD0, 8, new byte[]{(byte) (0x20 | (ocrssiMin - 1))});
 //            Gen2.Select ocrssiMaxFilter = Common.createGen2Select(4, 2, Gen2.Bank.USER, 0xD0, 8, new byte[]{ocrssiMax});
@@ -253,43 +437,112 @@ public class ThingMagicDriver {
 //            }
 //            System.out.println();
 
-            if (IS_LOGGING_ENABLED)
-                System.out.printf("inside startReading(). readingCycleNumber=%d", readingCycleNumber);
-            System.out.println();
+        if (IS_LOGGING_ENABLED)
+            System.out.printf("inside startReading(). readingCycleNumber=%d", readingCycleNumber);
+        System.out.println();
+
+        updateThermalDutyCycle();
 
-            // Create new inventory map
-            final Map<String, InventoryReadItem> invReadItemMapForCycle = new HashMap<>(inventoryReadMap);
+        // Start inventory of the cycle from the last one. Only tags changed in the last cycle are copied.
+        final InventoryStore cycleInventory = inventory.beginUpdate();
+        int cycleShelvesCount = 0;
 
-            try { // Catch all unpredictable exceptions
-                for (int shelf = 1; shelf <= SHELVES_COUNT; shelf++) {
-                    dragonFruitFacade.setShelf(shelf);
-                    readPlans(shelf, readingCycleNumber + 1, invReadItemMapForCycle);
+        try { // Catch all unpredictable exceptions
+            if (continuousReading) {
+                readerBackend.startContinuousReading(readDurationInd, getAntennaSleep());
+            }
+            for (final int shelf : shelfScheduler.getShelvesForCycle(readingCycleNumber + 1)) {
+                readerHost.setShelf(shelf);
+                mergeExecutor.execute(inventoryMerger::startShelf);
+                final boolean shelfRead;
+                if (continuousReading) {
+                    shelfRead = readWindow(shelf, readingCycleNumber + 1, cycleInventory);
+                } else if (weightedReadPlan) {
+                    shelfRead = readWeightedPlan(shelf, readingCycleNumber + 1, cycleInventory);
+                } else {
+                    shelfRead = readPlans(shelf, readingCycleNumber + 1, cycleInventory);
+                }
+                // Shelf with a failed read is not read in this cycle, its tags are not missing.
+                if (!shelfRead) {
+                    continue;
+                }
+                final long shelfReadingCycleNumber = readingCycleNumber + 1;
+                mergeExecutor.execute(() -> inventoryMerger.finishShelf(shelf, shelfReadingCycleNumber));
+                if (cycleShelvesCount < cycleShelves.length) {
+                    cycleShelves[cycleShelvesCount++] = shelf;
                 }
-            } catch (Throwable e) {
-                e.printStackTrace();
             }
+        } catch (Throwable e) {
+            e.printStackTrace();
+        }
 
-            // Increment cycle number.
-            readingCycleNumber++;
+        // Wait until all reads of the cycle are merged.
+        awaitMerges();
 
-            // Apply readings.
-            inventoryReadMap.clear();
-            inventoryReadMap.putAll(invReadItemMapForCycle);
+        // Increment cycle number.
+        readingCycleNumber++;
 
-            // Read through all antennas is done, propagate events.
+        // Find changes of the cycle. Changes are not created when nobody listens.
+        final List<InventoryChange> changes = inventoryListeners.isEmpty() ? null : new ArrayList<>();
+        deltaTracker.update(cycleInventory, readingCycleNumber, cycleShelves, cycleShelvesCount, changes);
 
-            readTemperatureTags();
+        // Evict tags absent for too long, evicted tags were reported as removed before.
+        if (inventoryAging != null) {
+            final int evicted = inventoryAging.update(cycleInventory, deltaTracker, readingCycleNumber,
+                    clock.currentTimeMillis());
+            if (IS_LOGGING_ENABLED && evicted > 0) {
+                System.out.printf("Evicted %d absent tags, inventory size=%d", evicted, cycleInventory.size());
+                System.out.println();
+            }
+        }
+
+        // Apply readings.
+        final long version = inventory.publish();
+
+        // Read through all antennas is done, propagate events.
+        if (changes != null && !changes.isEmpty()) {
+            final InventoryDelta delta = new InventoryDelta(version, readingCycleNumber, changes);
+            eventExecutor.execute(() -> notifyInventoryChanged(delta));
+        }
+
+        readTemperatureTags();
+    }
+
+    /**
+     * Poll radio temperature and apply duty cycle of the thermal controller.
+     */
+    private void updateThermalDutyCycle() {
+        if (thermalController == null || !thermalController.shouldPoll(readingCycleNumber)) {
+            return;
+        }
+
+        // Radio parameters can't be read during continuous reading, it is restarted with new duty cycle.
+        readerBackend.stopContinuousReading();
+
+        final Integer temperature = readerBackend.getRadioTemperature();
+        if (temperature == null) {
+            thermalController.onPollFailed(readingCycleNumber);
+        } else {
+            thermalController.update(temperature);
+        }
+        readDurationInd = thermalController.getReadDuration();
+        antennaSleep = thermalController.getAntennaSleep();
+
+        if (IS_LOGGING_ENABLED) {
+            System.out.printf("Radio temperature: %s, duty cycle: %.2f, antennaSleep=%d, readDurationInd=%d",
+                    temperature, thermalController.getDutyCycle(), antennaSleep, readDurationInd);
+            System.out.println();
         }
     }
 
     private void setupPreferences() {
         try {
-            thingMagicReaderWrapper.paramSetTari("TARI_25US");
-            thingMagicReaderWrapper.paramSetBlf("LINK250KHZ");
-            thingMagicReaderWrapper.paramSetTagEncoding("M4");
-            thingMagicReaderWrapper.paramSetQAlgorithm("dynamic");
-            thingMagicReaderWrapper.paramSetSession("S0");
-            thingMagicReaderWrapper.paramSetTarget("A");
+            readerBackend.paramSetTari("TARI_25US");
+            readerBackend.paramSetBlf("LINK250KHZ");
+            readerBackend.paramSetTagEncoding("M4");
+            readerBackend.paramSetQAlgorithm("dynamic");
+            readerBackend.paramSetSession("S0");
+            readerBackend.paramSetTarget("A");
         } catch (Exception e) {
             System.out.println("setupPreferences error:");
         }
@@ -299,7 +552,7 @@ public class ThingMagicDriver {
         if (IS_LOGGING_ENABLED)
             System.out.println("Read flag is set. Initialize reading tag temperature flow.");
 
-        List<TagReadData> temperatureTagsData = tagReadCache.getTemperatureTags();
+        final TagReadDataCache.TemperatureTagIterator temperatureTagsData = tagReadCache.getTemperatureTags();
 
         if (temperatureTagsData.isEmpty()) {
             if (IS_LOGGING_ENABLED)
@@ -307,35 +560,255 @@ public class ThingMagicDriver {
             return;
         }
 
+        // Temperature reads use their own read plans.
+        readerBackend.stopContinuousReading();
+        // Sensor reads carry memory data. Projection and module metadata are switched once for all of them.
+        final TagReadProjection inventoryProjection = readerBackend.getTagReadProjection();
+        readerBackend.setTagReadProjection(inventoryProjection.with(TagReadProjection.Field.DATA));
+
         try { // Catch all unpredictable exceptions
-            for (final TagReadData temperatureTagData : temperatureTagsData) {
-                if (IS_LOGGING_ENABLED)
-                    System.out.printf("Read tag temperature[ antenna: %d multiplier: %d rssi %d ]", temperatureTagData.getAntenna(), temperatureTagData.getAntennaMultiplier(), temperatureTagData.getRssi());
+            if (calibrationScan) {
+                scanMissingCalibrations(temperatureTagsData);
+                // Iterator is reused, start it again.
+                temperatureTagsData.reset();
+            }
+            if (sensorScan) {
+                scanSensorTags(temperatureTagsData);
+            } else {
+                readEachTemperatureTag(temperatureTagsData);
+            }
+            if (adaptiveTemperatureSampling && IS_LOGGING_ENABLED) {
+                System.out.printf("Adaptive temperature sampling skipped %d reads, rejected %d temperatures",
+                        temperatureSampler.getSkippedCount(), temperatureSampler.getRejectedCount());
                 System.out.println();
-                final List<Integer> shelvesList = List.of(temperatureTagData.getAntennaMultiplier());
-                for (int shelf = 1; shelf <= SHELVES_COUNT; shelf++) {
-                    if (shelvesList.contains(shelf)) {
-                        dragonFruitFacade.setShelf(shelf);
-                        readTemperature(temperatureTagData, temperatureTagData.getAntenna());
-                    }
-                }
             }
         } catch (Throwable e) {
             e.printStackTrace();
+        } finally {
+            readerBackend.setTagReadProjection(inventoryProjection);
+        }
+    }
+
+    /**
+     * Read temperature of each sensor tag with its own read.
+     */
+    private void readEachTemperatureTag(final TagReadDataCache.TemperatureTagIterator temperatureTagsData) {
+        final long now = clock.currentTimeMillis();
+        for (final TagReadData temperatureTagData : temperatureTagsData) {
+            if (adaptiveTemperatureSampling && !temperatureSampler.isReadDue(temperatureTagData.getEpc(), now)) {
+                continue;
+            }
+            if (IS_LOGGING_ENABLED)
+                System.out.printf("Read tag temperature[ antenna: %d multiplier: %d rssi %d ]", temperatureTagData.getAntenna(), temperatureTagData.getAntennaMultiplier(), temperatureTagData.getRssi());
+            System.out.println();
+            final List<Integer> shelvesList = List.of(temperatureTagData.getAntennaMultiplier());
+            for (int shelf = 1; shelf <= SHELVES_COUNT; shelf++) {
+                if (shelvesList.contains(shelf)) {
+                    readerHost.setShelf(shelf);
+                    readTemperature(temperatureTagData, temperatureTagData.getAntenna());
+                }
+            }
         }
     }
 
     /**
      * Read plans.
+     *
+     * @return true if all plans were read without error.
+     */
+    private boolean readPlans(final int antennaMultiplier, final long readingCycleNumber,
+                              final InventoryStore cycleInventory) throws Exception {
+        boolean success = true;
+        for (int i = 0; i < readerBackend.getReadPlanCount(); i++) {
+            readerBackend.paramSetReadPlan(i);
+            success &= read(readDurationInd, antennaMultiplier, readingCycleNumber, cycleInventory, i, 1);
+
+            clock.sleep(getSleepAfterRead());
+        }
+        return success;
+    }
+
+    /**
+     * Read all plans of the shelf with one weighted read plan. Weights come from tag counts of recent cycles.
+     *
+     * @return true if the plan was read without error.
+     */
+    private boolean readWeightedPlan(final int antennaMultiplier, final long readingCycleNumber,
+                                     final InventoryStore cycleInventory) throws Exception {
+        final double[] tagCounts = antennaTagCounts[antennaMultiplier];
+        final int[] weights = new int[chipAntennasCount];
+        for (int i = 0; i < chipAntennasCount; i++) {
+            weights[i] = MIN_PLAN_WEIGHT + (int) Math.round(tagCounts[i]);
+        }
+
+        readerBackend.paramSetMultiReadPlan(weights);
+        final boolean success = read(readDurationInd * chipAntennasCount, antennaMultiplier, readingCycleNumber,
+                cycleInventory, -1, chipAntennasCount);
+
+        clock.sleep(getSleepAfterRead());
+        return success;
+    }
+
+    /**
+     * Update smoothed tag counts of the shelf antennas.
+     */
+    private void updateAntennaTagCounts(final List<TagReadData> tagReads, final int antennaMultiplier) {
+        final int[] counts = new int[chipAntennasCount];
+        for (final TagReadData tagReadData : tagReads) {
+            final int plan = InventoryMerger.getReadPlanIndex(tagReadData.getAntenna());
+            if (plan >= 0 && plan < chipAntennasCount) {
+                counts[plan]++;
+            }
+        }
+
+        final double[] tagCounts = antennaTagCounts[antennaMultiplier];
+        for (int i = 0; i < chipAntennasCount; i++) {
+            tagCounts[i] += PLAN_WEIGHT_SMOOTHING * (counts[i] - tagCounts[i]);
+        }
+    }
+
+    /**
+     * Read all plans of the shelf in one continuous reading window. Read plan is detected by tag antenna.
+     *
+     * @return true if the window was read without error.
+     */
+    private boolean readWindow(final int antennaMultiplier, final long readingCycleNumber,
+                               final InventoryStore cycleInventory) {
+        final TagReadBatch batch = obtainBatch();
+        try {
+            final long timeBeforeRead = clock.currentTimeMillis();
+            final long windowDuration = readerBackend.getReadPlanCount() * (readDurationInd + getAntennaSleep());
+            final List<TagReadData> tagReads = batch.getTagReads();
+            readerBackend.readWindow(windowDuration, SHELF_SETTLE_TIME, tagReads);
+            if (IS_LOGGING_ENABLED) {
+                System.out.printf("Done with read window - shelf number: %d, num of tags read: %d, read time: %d", antennaMultiplier, tagReads.size(), clock.currentTimeMillis() - timeBeforeRead);
+                System.out.println();
+            }
+
+            submitBatch(batch, antennaMultiplier, readingCycleNumber, -1, cycleInventory);
+            return true;
+        } catch (Exception e) {
+            e.printStackTrace();
+            recycleBatch(batch);
+            return false;
+        }
+    }
+
+    /**
+     * Read sensor codes of cached sensor tags with one inventory per shelf and match them back by EPC.
+     * IMPORTANT: We have a pool of read data object and handle them manually.
+     */
+    private void scanSensorTags(final TagReadDataCache.TemperatureTagIterator temperatureTagsData) throws Exception {
+        final boolean[] sensorShelves = new boolean[SHELVES_COUNT + 1];
+        int expectedCount = 0;
+        final long now = clock.currentTimeMillis();
+        for (final TagReadData temperatureTagData : temperatureTagsData) {
+            final int shelf = temperatureTagData.getAntennaMultiplier();
+            // Shelf is scanned if one of its tags is due, other tags found by the scan are updated too.
+            if (shelf >= 1 && shelf <= SHELVES_COUNT && (!adaptiveTemperatureSampling
+                    || temperatureSampler.isReadDue(temperatureTagData.getEpc(), now))) {
+                sensorShelves[shelf] = true;
+                expectedCount++;
+            }
+        }
+
+        final List<SensorReading> shelfReadings = new ArrayList<>();
+        final List<TagReadData> tagReads = new ArrayList<>();
+        int foundCount = 0;
+        for (int shelf = 1; shelf <= SHELVES_COUNT; shelf++) {
+            if (!sensorShelves[shelf]) {
+                continue;
+            }
+            readerHost.setShelf(shelf);
+            tagReads.clear();
+            readerBackend.readSensorCodes(chipAntennas, readDurationInd, tagReads);
+
+            shelfReadings.clear();
+            for (final TagReadData tagReadData : tagReads) {
+                final SensorReading reading = tagReadData.isTemperatureTag() ? SensorReading.of(tagReadData) : null;
+                if (reading != null) {
+                    shelfReadings.add(reading);
+                }
+                readerBackend.returnObject(tagReadData);
+            }
+            // Calibration is read on the same shelf for tags which are not in the cache.
+            for (final SensorReading reading : shelfReadings) {
+                sensorReadings.put(reading.getEpc(), reading);
+                readSensorTemperature(reading);
+            }
+            foundCount += shelfReadings.size();
+        }
+
+        if (IS_LOGGING_ENABLED) {
+            System.out.printf("Sensor scan found %d sensor tags, %d were due", foundCount, expectedCount);
+            System.out.println();
+        }
+    }
+
+    /**
+     * Read calibration of cached sensor tags which are not in the calibration map, one inventory per shelf.
+     * IMPORTANT: We have a pool of read data object and handle them manually.
+     */
+    private void scanMissingCalibrations(final TagReadDataCache.TemperatureTagIterator temperatureTagsData) throws Exception {
+        final boolean[] calibrationShelves = new boolean[SHELVES_COUNT + 1];
+        int missingCount = 0;
+        for (final TagReadData temperatureTagData : temperatureTagsData) {
+            final int shelf = temperatureTagData.getAntennaMultiplier();
+            if (shelf >= 1 && shelf <= SHELVES_COUNT && getCalibration(temperatureTagData.getEpc()) == null) {
+                calibrationShelves[shelf] = true;
+                missingCount++;
+            }
+        }
+        if (missingCount == 0) {
+            return;
+        }
+
+        final List<TagReadData> tagReads = new ArrayList<>();
+        int calibratedCount = 0;
+        for (int shelf = 1; shelf <= SHELVES_COUNT; shelf++) {
+            if (!calibrationShelves[shelf]) {
+                continue;
+            }
+            readerHost.setShelf(shelf);
+            tagReads.clear();
+            readerBackend.readSensorCalibration(chipAntennas, readDurationInd, tagReads);
+
+            for (final TagReadData tagReadData : tagReads) {
+                final Epc epc = tagReadData.getEpc();
+                if (tagReadData.isTemperatureTag() && !calibrationMap.containsKey(epc)
+                        && putCalibration(epc, tagReadData.getData())) {
+                    calibratedCount++;
+                }
+                readerBackend.returnObject(tagReadData);
+            }
+        }
+
+        if (IS_LOGGING_ENABLED) {
+            System.out.printf("Calibration scan read %d calibrations, %d were missing", calibratedCount, missingCount);
+            System.out.println();
+        }
+    }
+
+    /**
+     * Calculate temperature of the sensor reading with calibration of the tag.
      */
-    private void readPlans(final int antennaMultiplier, final long readingCycleNumber,
-                           final Map<String, InventoryReadItem> inventoryReadMap) throws Exception {
-        for (int i = 0; i < thingMagicReaderWrapper.getReadPlanCount(); i++) {
-            thingMagicReaderWrapper.paramSetReadPlan(i);
-            read(readDurationInd, antennaMultiplier, readingCycleNumber, inventoryReadMap, i);
+    private void readSensorTemperature(final SensorReading reading) throws Exception {
+        final SensorReading.Status status = reading.getTemperatureStatus();
+        if (status != SensorReading.Status.OK) {
+            if (IS_LOGGING_ENABLED) {
+                System.out.printf("Sensor tag %s temperature: %s", reading.getEpc(), status);
+                System.out.println();
+            }
+            return;
+        }
 
-            SystemClock.sleep(getAntennaSleep());
+        final TagTemperatureReadData calibrationReadData = readCalibrationTagTemperature(reading.getEpc(),
+                reading.getAntenna(), readDurationInd);
+        if (calibrationReadData == null) {
+            if (IS_LOGGING_ENABLED) System.out.println("Can't read calibration data.");
+            return;
         }
+        addTemperature(reading.getEpc(), calibrationReadData.getTemperature(reading.getTemperatureCode()));
     }
 
     /**
@@ -350,18 +823,34 @@ public class ThingMagicDriver {
         }
 
         if (tagTemperatureReadData != null && tagTemperatureReadData.getTemperature() != 0) {
-            System.out.println("tagTemperatureReadData.getTemperature() = " + tagTemperatureReadData.getTemperature());
+            addTemperature(tagReadData.getEpc(), tagTemperatureReadData.getTemperature());
         }
     }
 
+    /**
+     * Keep temperature of the sensor tag unless adaptive sampling rejects it as an outlier.
+     */
+    private void addTemperature(final Epc epc, final double temperature) {
+        final long now = clock.currentTimeMillis();
+        if (adaptiveTemperatureSampling && !temperatureSampler.update(epc, now, temperature)) {
+            if (IS_LOGGING_ENABLED) {
+                System.out.printf("Sensor tag %s temperature %.2f is rejected as outlier", epc, temperature);
+                System.out.println();
+            }
+            return;
+        }
+        System.out.println("tagTemperatureReadData.getTemperature() = " + temperature);
+        temperatureHistory.add(epc, now, temperature);
+    }
+
     /**
      * Read temperature from RFMicron tag.
      * IMPORTANT: We have a pool of read data object and handle them manually.
      */
     private TagTemperatureReadData readTagTemperature(final TagReadData tagReadData, final int antenna, final long readDuration) throws Exception {
         System.out.println("readTagTemperature() called with: epc = [" + tagReadData.getEpc() + "], antenna = [" + antenna + "], readDuration = [" + readDuration + "]");
-        String epc = tagReadData.getEpc();
-        final TagReadData[] tagReads = thingMagicReaderWrapper.readTemperatureCode(antenna, readDuration, tagReadData);
+        final Epc epc = tagReadData.getEpc();
+        final TagReadData[] tagReads = readerBackend.readTemperatureCode(antenna, readDuration, tagReadData);
 
 
         byte[] temperatureCodeData = null;
@@ -369,7 +858,7 @@ public class ThingMagicDriver {
             if (tagReadData.isTemperatureTag() && trd.getEpc().equals(epc)) {
                 temperatureCodeData = trd.getData();
             }
-            thingMagicReaderWrapper.returnObject(tagReadData);
+            readerBackend.returnObject(trd);
         }
 
         if (temperatureCodeData == null) {
@@ -398,125 +887,332 @@ public class ThingMagicDriver {
      * Read calibration data or get from the cache.
      * IMPORTANT: We have a pool of read data object and handle them manually.
      */
-    private TagTemperatureReadData readCalibrationTagTemperature(final String epc, final int antenna, final long readDuration) throws Exception {
-        if (!calibrationMap.containsKey(epc)) {
+    private TagTemperatureReadData readCalibrationTagTemperature(final Epc epc, final int antenna, final long readDuration) throws Exception {
+        if (getCalibration(epc) == null) {
             if (IS_LOGGING_ENABLED) System.out.printf("Read calibration data for epc %s", epc);
             System.out.println();
 
-            final TagReadData[] tagReads = thingMagicReaderWrapper.readTemperatureCalibration(epc, antenna, readDuration);
+            final TagReadData[] tagReads = readerBackend.readTemperatureCalibration(epc, antenna, readDuration);
 
-            final TagTemperatureReadData tagTemperatureReadData = new TagTemperatureReadData();
             for (final TagReadData tagReadData : tagReads) {
-                if (tagReadData.isTemperatureTag() && epc.equals(tagReadData.getEpc())
-                        && tagTemperatureReadData.setCalibrationDataWithCRC(tagReadData.getData())) {
-                    calibrationMap.put(epc, tagTemperatureReadData);
+                if (tagReadData.isTemperatureTag() && epc.equals(tagReadData.getEpc())) {
+                    putCalibration(epc, tagReadData.getData());
                 }
-                thingMagicReaderWrapper.returnObject(tagReadData);
+                readerBackend.returnObject(tagReadData);
             }
         }
 
         return calibrationMap.get(epc);
     }
 
+    /**
+     * @return calibration from the map or the store, null if it was not read yet.
+     * Each use is recorded in the store, so tags read often are not replaced when it is full.
+     */
+    private TagTemperatureReadData getCalibration(final Epc epc) {
+        TagTemperatureReadData result = calibrationMap.get(epc);
+        if (result != null && calibrationStore != null) {
+            calibrationStore.touch(epc);
+        } else if (result == null && calibrationStore != null) {
+            result = calibrationStore.get(epc);
+            if (result != null) {
+                calibrationMap.put(epc, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Check calibration data read from the tag and keep it in the map and the store.
+     *
+     * @param calibrationDataWithCRC CRC and calibration words.
+     * @return false if CRC check failed.
+     */
+    private boolean putCalibration(final Epc epc, final byte[] calibrationDataWithCRC) {
+        final TagTemperatureReadData tagTemperatureReadData = new TagTemperatureReadData();
+        if (!tagTemperatureReadData.setCalibrationDataWithCRC(calibrationDataWithCRC)) {
+            return false;
+        }
+        calibrationMap.put(epc, tagTemperatureReadData);
+        if (calibrationStore != null) {
+            calibrationStore.put(epc, calibrationDataWithCRC);
+        }
+        return true;
+    }
+
 
     /**
      * Read data.
      * IMPORTANT: We have a pool of read data object and handle them manually.
+     *
+     * @return true if the plan was read without error.
      */
-    private void read(final long readOnMs, final int antennaMultiplier,
-                      final long readingCycleNumber,
-                      final Map<String, InventoryReadItem> inventoryReadMap, int plan) {
+    private boolean read(final long readOnMs, final int antennaMultiplier,
+                         final long readingCycleNumber,
+                         final InventoryStore cycleInventory, int plan, int plansCount) {
+        final TagReadBatch batch = obtainBatch();
         try {
-            final long timeBeforeRead = System.currentTimeMillis();
-            final TagReadData[] tagReads = thingMagicReaderWrapper.read(readOnMs);
+            final long timeBeforeRead = clock.currentTimeMillis();
+            final List<TagReadData> tagReads = batch.getTagReads();
+            if (dwellController != null) {
+                readAdaptive(plansCount, tagReads);
+            } else {
+                readerBackend.read(readOnMs, tagReads);
+            }
+            lastReadOnTime = clock.currentTimeMillis() - timeBeforeRead;
             if (IS_LOGGING_ENABLED) {
-                System.out.printf("(hello) Done with read - shelf number: %d, num of tags read: %d, read time: %d\n", antennaMultiplier, tagReads.length, System.currentTimeMillis() - timeBeforeRead);
-                for (TagReadData tagRead : tagReads) {
-                    System.out.printf("\t(hello) tag = %s\n", tagRead.toString());
-                }
+                System.out.printf("(hello) Done with read - shelf number: %d, num of tags read: %d, read time: %d\n", antennaMultiplier, tagReads.size(), clock.currentTimeMillis() - timeBeforeRead);
             }
 
-            int minRssi = -10;
-            String epc;
-
-            for (final TagReadData tagReadData : tagReads) {
-                epc = tagReadData.getEpc();
-
-                final int realAntenna = ((tagReadData.getAntenna() - 1) * (realAntennasCount / chipAntennasCount) + antennaMultiplier);
-                // Count statistics at the first and include all data which we get form ThingMagic.
-                if (tagReadData.getRssi() < minRssi) {
-                    minRssi = tagReadData.getRssi();
-                }
-
-                tagReadData.setAntennaMultiplier(antennaMultiplier);
-
-                if (epc.length() != EPC_VALID_LENGTH) { // Discard EPC that is not of length 24
-                    System.out.printf("EPC ignored: %s", epc);
-                    System.out.println();
-                } else {
-
-                    final InventoryReadItem existingItem = inventoryReadMap.get(epc);
-
-                    if (existingItem == null
-                            || readingCycleNumber > existingItem.getReadingCycleNumber()
-                            || tagReadData.getRssi() > existingItem.getRssi()) {
+            if (plan < 0) {
+                updateAntennaTagCounts(tagReads, antennaMultiplier);
+            }
+            submitBatch(batch, antennaMultiplier, readingCycleNumber, plan, cycleInventory);
+            return true;
+        } catch (Exception e) {
+            e.printStackTrace();
+            // Batch was not submitted, return tags read before the failure.
+            recycleBatch(batch);
+            return false;
+        }
+    }
 
-                        final InventoryReadItem inventoryReadItem = InventoryReadItem.create(
-                                tagReadData,
-                                realAntenna,
-                                readingCycleNumber,
-                                thingMagicReaderWrapper.getReadPower(),
-                                plan,
-                                antennaMultiplier
-                        );
+    /**
+     * @return free read batch. Waits for the oldest merge if too many reads are waiting.
+     */
+    private TagReadBatch obtainBatch() {
+        if (pendingBatches.size() >= MAX_PENDING_BATCHES) {
+            recycleBatch(pendingBatches.poll());
+        }
+        final TagReadBatch batch = freeBatches.poll();
+        return batch != null ? batch : new TagReadBatch();
+    }
 
-                        inventoryReadMap.put(epc, inventoryReadItem);
-                    }
+    /**
+     * Pass read batch to the merge thread.
+     */
+    private void submitBatch(final TagReadBatch batch, final int antennaMultiplier, final long readingCycleNumber,
+                             final int plan, final InventoryStore cycleInventory) {
+        batch.set(antennaMultiplier, readingCycleNumber, plan, readerBackend.getReadPower(), cycleInventory);
+        batch.setMergeFuture(mergeExecutor.submit(() -> inventoryMerger.merge(batch)));
+        pendingBatches.add(batch);
+    }
 
-                }
+    /**
+     * Wait for batch merge and return its tags to the pool. The cache keeps its own copies of temperature tags.
+     * IMPORTANT: We have a pool of read data object and handle them manually.
+     */
+    private void recycleBatch(final TagReadBatch batch) {
+        if (batch.getMergeFuture() != null) {
+            try {
+                batch.getMergeFuture().get();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        for (final TagReadData tagReadData : batch.getTagReads()) {
+            // To simplify GC work return object back to the pool
+            readerBackend.returnObject(tagReadData);
+        }
+        batch.clear();
+        freeBatches.add(batch);
+    }
 
-                // Update reading cycle to clear obsolete data
-                tagReadCache.updateReadingCycle(readingCycleNumber);
+    /**
+     * Wait until all read batches are merged.
+     */
+    private void awaitMerges() {
+        while (!pendingBatches.isEmpty()) {
+            recycleBatch(pendingBatches.poll());
+        }
+        // Shelf tasks are queued after the last batch.
+        try {
+            mergeExecutor.submit(() -> { }).get();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
 
-                // Handle temperature tag
-                if (tagReadData.isTemperatureTag()) {
-                    tagReadCache.add(tagReadData);
-//                    if (BuildConfig.DEBUG) {
-                    if (IS_LOGGING_ENABLED)
-                        System.out.printf("Found a tag temperature[ antenna: %d multiplier: %d rssi %d ]", tagReadData.getAntenna(), antennaMultiplier, tagReadData.getRssi());
-                    System.out.println();
-//                    }
-                } else {
-                    // To simplify GC work return object back to the pool
-                    thingMagicReaderWrapper.returnObject(tagReadData);
+    /**
+     * Read until dwell controller decides that tag discovery is saturated.
+     */
+    private void readAdaptive(final int plansCount, final List<TagReadData> tagReads) throws Exception {
+        readEpcs.clear();
+        int checkedCount = 0;
+
+        readerBackend.startReading();
+        dwellController.start(clock.currentTimeMillis(), plansCount);
+        long now;
+        do {
+            clock.sleep(dwellController.getPollInterval());
+            readerBackend.pollReads(tagReads);
+            now = clock.currentTimeMillis();
+
+            for (; checkedCount < tagReads.size(); checkedCount++) {
+                if (readEpcs.add(tagReads.get(checkedCount).getEpc())) {
+                    dwellController.onNewEpc(now);
                 }
             }
+        } while (!dwellController.shouldStop(now));
+        readerBackend.stopReading(tagReads);
 
-            if (IS_LOGGING_ENABLED) System.out.printf("Min RSSI of the tags read above: %d", minRssi);
+        if (IS_LOGGING_ENABLED) {
+            System.out.printf("Adaptive dwell: %d ms, unique EPCs: %d", dwellController.getElapsed(now), readEpcs.size());
             System.out.println();
-        } catch (Exception e) {
-            e.printStackTrace();
         }
     }
 
+
     /**
      * Configure device to half duty cycle.
      */
     public void setHalfDutyCycle() {
+        thermalController = null;
         readDurationInd = READ_DURATION_IND_LONG;
         antennaSleep = ANTENNA_SLEEP_LONG;
 
-        thingMagicReaderWrapper.setReadPower(thingMagicReaderWrapper.getMaxReadPower());
+        readerBackend.setReadPower(readerBackend.getMaxReadPower());
 
         System.out.printf("TM durations were changed: antennaSleep=%d, readDurationInd=%d", antennaSleep, readDurationInd);
         System.out.println();
     }
 
     /**
-     * If should sleep return antenna sleep, else 0.
+     * Set scheduler which decides which shelves are read in each cycle.
+     */
+    public void setShelfScheduler(final ShelfScheduler shelfScheduler) {
+        this.shelfScheduler = shelfScheduler;
+        inventoryMerger.setShelfScheduler(shelfScheduler);
+    }
+
+    /**
+     * Switch between continuous reading and start/stop reading per read plan.
+     */
+    public void setContinuousReading(final boolean continuousReading) {
+        this.continuousReading = continuousReading;
+
+        System.out.printf("TM continuous reading: %s", continuousReading);
+        System.out.println();
+    }
+
+    /**
+     * Switch between one sensor codes inventory per shelf and one temperature read per sensor tag.
+     */
+    public void setSensorScan(final boolean sensorScan) {
+        this.sensorScan = sensorScan;
+
+        System.out.printf("TM sensor scan: %s", sensorScan);
+        System.out.println();
+    }
+
+    /**
+     * Switch between one calibration inventory per shelf and one calibration read per new sensor tag.
+     */
+    public void setCalibrationScan(final boolean calibrationScan) {
+        this.calibrationScan = calibrationScan;
+
+        System.out.printf("TM calibration scan: %s", calibrationScan);
+        System.out.println();
+    }
+
+    /**
+     * Read temperature of sensor tags only when their estimates are uncertain instead of every cycle.
+     */
+    public void setAdaptiveTemperatureSampling(final boolean adaptiveTemperatureSampling) {
+        this.adaptiveTemperatureSampling = adaptiveTemperatureSampling;
+
+        System.out.printf("TM adaptive temperature sampling: %s", adaptiveTemperatureSampling);
+        System.out.println();
+    }
+
+    /**
+     * Keep calibration of sensor tags in the store, or null to keep it in memory only.
+     * Store is opened by {@link #connect()} if it is not set and the host keeps files.
+     */
+    public void setCalibrationStore(final CalibrationStore calibrationStore) {
+        this.calibrationStore = calibrationStore;
+
+        if (calibrationStore != null) {
+            System.out.printf("TM calibration store: %d of %d records", calibrationStore.size(),
+                    calibrationStore.getCapacity());
+            System.out.println();
+        }
+    }
+
+    /**
+     * @return last sensor reading of the tag found by sensor scan or null.
+     */
+    public SensorReading getSensorReading(final Epc epc) {
+        return sensorReadings.get(epc);
+    }
+
+    /**
+     * @return temperature history of sensor tags. It may be queried from any thread.
+     */
+    public TemperatureHistory getTemperatureHistory() {
+        return temperatureHistory;
+    }
+
+    /**
+     * Switch between one weighted read plan per shelf and one read per read plan.
+     */
+    public void setWeightedReadPlan(final boolean weightedReadPlan) {
+        this.weightedReadPlan = weightedReadPlan;
+
+        System.out.printf("TM weighted read plan: %s", weightedReadPlan);
+        System.out.println();
+    }
+
+    /**
+     * Set controller to stop reads when tag discovery is saturated, or null to read for fixed duration.
+     */
+    public void setAdaptiveDwell(final AdaptiveDwellController dwellController) {
+        this.dwellController = dwellController;
+
+        System.out.printf("TM adaptive dwell: %s", dwellController != null);
+        System.out.println();
+    }
+
+    /**
+     * Set policy to evict tags absent for too long, or null to keep all tags ever seen.
+     */
+    public void setInventoryAging(final InventoryAging inventoryAging) {
+        this.inventoryAging = inventoryAging;
+
+        System.out.printf("TM inventory aging: %s", inventoryAging != null);
+        System.out.println();
+    }
+
+    /**
+     * Configure device to duty cycle controlled by radio temperature.
+     */
+    public void setThermalDutyCycle() {
+        thermalController = new ThermalDutyCycleController(READ_DURATION_IND_LONG);
+        readDurationInd = thermalController.getReadDuration();
+        antennaSleep = thermalController.getAntennaSleep();
+
+        readerBackend.setReadPower(readerBackend.getMaxReadPower());
+
+        System.out.printf("TM thermal duty cycle: antennaSleep=%d, readDurationInd=%d", antennaSleep, readDurationInd);
+        System.out.println();
+    }
+
+    /**
+     * @return sleep after the last read. Thermal duty cycle is kept for the measured read time,
+     * adaptive dwell and weighted plans read longer than one read duration.
+     */
+    private long getSleepAfterRead() {
+        if (thermalController != null) {
+            return thermalController.getAntennaSleep(lastReadOnTime);
+        }
+        return getAntennaSleep();
+    }
+
+    /**
+     * If should sleep or duty cycle is controlled by temperature return antenna sleep, else 0.
      */
     private long getAntennaSleep() {
-        if (shouldSleepAfterReading) {
+        if (shouldSleepAfterReading || thermalController != null) {
             return antennaSleep;
         }
 
@@ -527,7 +1223,58 @@ public class ThingMagicDriver {
      * @return true if device is connected.
      */
     public boolean isConnected() {
-        return thingMagicReaderWrapper.isConnected();
+        return readerBackend.isConnected();
+    }
+
+    public long getReadingCycleNumber() {
+        return readingCycleNumber;
+    }
+
+    /**
+     * @return count of tags evicted by the current aging policy.
+     */
+    public long getEvictedCount() {
+        final InventoryAging aging = inventoryAging;
+        return aging != null ? aging.getEvictedCount() : 0;
+    }
+
+    public void addInventoryListener(final InventoryListener listener) {
+        inventoryListeners.add(listener);
+    }
+
+    public void removeInventoryListener(final InventoryListener listener) {
+        inventoryListeners.remove(listener);
+    }
+
+    private void notifyInventoryChanged(final InventoryDelta delta) {
+        if (IS_LOGGING_ENABLED) {
+            System.out.printf("Inventory version %d: %d changes", delta.getVersion(), delta.getChanges().size());
+            System.out.println();
+        }
+
+        for (final InventoryListener listener : inventoryListeners) {
+            try { // Listener should not stop other listeners
+                listener.onInventoryChanged(delta);
+            } catch (Throwable e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * @return snapshot of inventory of the last finished reading cycle. It should be closed.
+     */
+    public InventorySnapshot acquireInventory() {
+        return inventory.acquire();
+    }
+
+    /**
+     * @return copy of inventory of the last finished reading cycle.
+     */
+    public Map<Epc, InventoryReadItem> getInventoryReadMap() {
+        try (InventorySnapshot snapshot = inventory.acquire()) {
+            return snapshot.getStore().toMap();
+        }
     }
 
     static class TemperatureCalibration {
@@ -0,0 +1,132 @@
+package me.pantre.app.peripheral.model;
+
+import androidx.annotation.NonNull;
+
+import me.pantre.app.model.Epc;
+
+/**
+ * Sensor codes of a Magnus sensor tag read by a sensor scan: words Ch (moisture), Dh (on-chip RSSI)
+ * and Eh (temperature code) of the reserved bank.
+ * <p>
+ * Immutable.
+ */
+public final class SensorReading {
+    /**
+     * Size of the sensor codes data (3 words).
+     */
+    public static final int SENSOR_CODES_DATA_SIZE = 6;
+
+    /**
+     * On-chip RSSI range where the sensor codes are valid. Temperature needs less power than moisture.
+     */
+    private static final int MIN_ON_CHIP_RSSI = 5,
+            MAX_MOISTURE_ON_CHIP_RSSI = 21,
+            MAX_TEMPERATURE_ON_CHIP_RSSI = 18;
+    /**
+     * Range of valid temperature codes.
+     */
+    private static final int MIN_TEMPERATURE_CODE = 1000,
+            MAX_TEMPERATURE_CODE = 3500;
+
+    public enum Status {
+        OK,
+        POWER_TOO_LOW,
+        POWER_TOO_HIGH,
+        BAD_READ
+    }
+
+    private final Epc epc;
+    private final int antenna;
+    private final long time;
+    private final int moistureCode;
+    private final int onChipRssi;
+    private final int temperatureCode;
+
+    private SensorReading(final Epc epc, final int antenna, final long time,
+                          final int moistureCode, final int onChipRssi, final int temperatureCode) {
+        this.epc = epc;
+        this.antenna = antenna;
+        this.time = time;
+        this.moistureCode = moistureCode;
+        this.onChipRssi = onChipRssi;
+        this.temperatureCode = temperatureCode;
+    }
+
+    /**
+     * @return sensor codes of the tag read or null if the read has no sensor codes data.
+     */
+    public static SensorReading of(final TagReadData tagReadData) {
+        final byte[] data = tagReadData.getData();
+        if (data == null || data.length != SENSOR_CODES_DATA_SIZE) {
+            return null;
+        }
+        return new SensorReading(tagReadData.getEpc(), tagReadData.getAntenna(), tagReadData.getTime(),
+                word(data, 0), word(data, 1) & 0x1F, word(data, 2) & 0x0FFF);
+    }
+
+    private static int word(final byte[] data, final int index) {
+        return ((data[2 * index] & 0xFF) << 8) | (data[2 * index + 1] & 0xFF);
+    }
+
+    /**
+     * @return status of the temperature code.
+     */
+    public Status getTemperatureStatus() {
+        if (onChipRssi < MIN_ON_CHIP_RSSI) {
+            return Status.POWER_TOO_LOW;
+        } else if (onChipRssi > MAX_TEMPERATURE_ON_CHIP_RSSI) {
+            return Status.POWER_TOO_HIGH;
+        } else if (temperatureCode < MIN_TEMPERATURE_CODE || temperatureCode > MAX_TEMPERATURE_CODE) {
+            return Status.BAD_READ;
+        }
+        return Status.OK;
+    }
+
+    /**
+     * @return status of the moisture code.
+     */
+    public Status getMoistureStatus() {
+        if (onChipRssi < MIN_ON_CHIP_RSSI) {
+            return Status.POWER_TOO_LOW;
+        } else if (onChipRssi > MAX_MOISTURE_ON_CHIP_RSSI) {
+            return Status.POWER_TOO_HIGH;
+        }
+        return Status.OK;
+    }
+
+    public Epc getEpc() {
+        return epc;
+    }
+
+    public int getAntenna() {
+        return antenna;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public int getMoistureCode() {
+        return moistureCode;
+    }
+
+    public int getOnChipRssi() {
+        return onChipRssi;
+    }
+
+    public int getTemperatureCode() {
+        return temperatureCode;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "SensorReading={"
+                + "epc=" + epc + ','
+                + "antenna=" + antenna + ','
+                + "moistureCode=" + moistureCode + ','
+                + "onChipRssi=" + onChipRssi + ','
+                + "temperatureCode=" + temperatureCode
+                + "}";
+    }
+}
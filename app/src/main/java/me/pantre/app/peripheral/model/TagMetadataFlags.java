@@ -0,0 +1,83 @@
+package me.pantre.app.peripheral.model;
+
+import com.thingmagic.TagReadData.TagMetadataFlag;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Tag metadata which the module sends with each tag report, see {@link com.thingmagic.TMConstants#TMR_PARAM_READER_METADATA}.
+ * Metadata is sent over the serial link for every tag read, so only fields of the projection are requested.
+ */
+public final class TagMetadataFlags {
+
+    private TagMetadataFlags() {
+    }
+
+    /**
+     * @return metadata needed by the projection. Protocol is always requested, tag data is parsed by it.
+     */
+    public static Set<TagMetadataFlag> of(final TagReadProjection projection) {
+        final Set<TagMetadataFlag> flags = EnumSet.of(TagMetadataFlag.PROTOCOL);
+        if (projection.readCount) {
+            flags.add(TagMetadataFlag.READCOUNT);
+        }
+        if (projection.rssi) {
+            flags.add(TagMetadataFlag.RSSI);
+        }
+        if (projection.antenna) {
+            flags.add(TagMetadataFlag.ANTENNAID);
+        }
+        if (projection.frequency) {
+            flags.add(TagMetadataFlag.FREQUENCY);
+        }
+        if (projection.time) {
+            flags.add(TagMetadataFlag.TIMESTAMP);
+        }
+        if (projection.phase) {
+            flags.add(TagMetadataFlag.PHASE);
+        }
+        if (projection.data) {
+            flags.add(TagMetadataFlag.DATA);
+        }
+        return flags;
+    }
+
+    /**
+     * @return size of the metadata in a tag report (in bytes). Memory data is counted by its length field only,
+     * tag type is not counted.
+     */
+    public static int sizeOf(final Set<TagMetadataFlag> flags) {
+        final Set<TagMetadataFlag> fields = flags.contains(TagMetadataFlag.ALL)
+                ? EnumSet.allOf(TagMetadataFlag.class) : flags;
+        int size = 0;
+        for (TagMetadataFlag flag : fields) {
+            size += sizeOf(flag);
+        }
+        return size;
+    }
+
+    private static int sizeOf(final TagMetadataFlag flag) {
+        switch (flag) {
+            case READCOUNT:
+            case RSSI:
+            case ANTENNAID:
+            case PROTOCOL:
+            case GPIO_STATUS:
+            case GEN2_Q:
+            case GEN2_LF:
+            case GEN2_TARGET:
+                return 1;
+            case PHASE:
+            case DATA:
+            case BRAND_IDENTIFIER:
+                return 2;
+            case FREQUENCY:
+                return 3;
+            case TIMESTAMP:
+                return 4;
+            default:
+                return 0;
+        }
+    }
+}
@@ -6,17 +6,25 @@ import com.thingmagic.DefaultPooledObjectFactory;
 import com.thingmagic.TagData;
 
 import java.util.Arrays;
+import java.util.List;
+
+import me.pantre.app.model.Epc;
 
 public class TagReadData {
     /**
      * Each kiosk will have a different temperature tag. To identify temperature tag we will use such prefix.
      * Example epc: `000000000000000000001263` or `000000000000000000001285`
      */
-    private static final String TEMPERATURE_EPC_PREFIX = "00000000";
-    private static final String TEMPERATURE_SKU1_PREFIX = "00004716";
-    private static final String TEMPERATURE_SKU2_PREFIX = "00004717";
+    private static final Epc TEMPERATURE_EPC_PREFIX = Epc.fromHex("00000000");
+    private static final Epc TEMPERATURE_SKU1_PREFIX = Epc.fromHex("00004716");
+    private static final Epc TEMPERATURE_SKU2_PREFIX = Epc.fromHex("00004717");
+    /**
+     * EPC prefixes of temperature tags.
+     */
+    public static final List<Epc> TEMPERATURE_EPC_PREFIXES = List.of(TEMPERATURE_EPC_PREFIX,
+            TEMPERATURE_SKU1_PREFIX, TEMPERATURE_SKU2_PREFIX);
 
-    private String epc;
+    private Epc epc;
     private int antenna;
     private long time;
     private int rssi;
@@ -53,11 +61,28 @@ public class TagReadData {
                 + "}";
     }
 
-    public String getEpc() {
+    /**
+     * Copy all fields of the tag read.
+     */
+    public void copyFrom(final TagReadData other) {
+        epc = other.epc;
+        antenna = other.antenna;
+        time = other.time;
+        rssi = other.rssi;
+        frequency = other.frequency;
+        phase = other.phase;
+        readCount = other.readCount;
+        data = other.data;
+        tidMemData = other.tidMemData;
+        antennaMultiplier = other.antennaMultiplier;
+        tagData = other.tagData;
+    }
+
+    public Epc getEpc() {
         return epc;
     }
 
-    public void setEpc(String epc) {
+    public void setEpc(Epc epc) {
         this.epc = epc;
     }
 
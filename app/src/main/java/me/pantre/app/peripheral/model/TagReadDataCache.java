@@ -1,41 +1,167 @@
 package me.pantre.app.peripheral.model;
 
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
+import me.pantre.app.model.Epc;
+
+/**
+ * Tag reads of the reading cycle with the best RSSI of each EPC.
+ * Open addressing EPC index, slots are valid only in the generation they were written,
+ * so a new reading cycle clears the cache without walking it.
+ * <p>
+ * Tag reads are copied into entries owned by the cache, so added reads stay with their owner.
+ */
 public class TagReadDataCache {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * Copies of tag reads in order of the first read of the EPC. Entries are reused by next cycles.
+     */
+    private TagReadData[] tagsReadData = new TagReadData[DEFAULT_CAPACITY];
+    /**
+     * Temperature flag of each entry, computed once.
+     */
+    private boolean[] temperatureTags = new boolean[DEFAULT_CAPACITY];
+    private int size = 0;
+
+    /**
+     * Entry + 1 by slot and generation of the slot. Length is a power of two, load is at most 1/2.
+     */
+    private int[] index = new int[2 * DEFAULT_CAPACITY];
+    private int[] slotGenerations = new int[2 * DEFAULT_CAPACITY];
+    private int generation = 1;
 
-    private final List<TagReadData> tagsReadData = new ArrayList<>();
     private long tagsReadingCycle = 0;
 
+    private final TemperatureTagIterator temperatureTagIterator = new TemperatureTagIterator();
+
     public void updateReadingCycle(final long readingCycle) {
         if (tagsReadingCycle != readingCycle) {
             tagsReadingCycle = readingCycle;
-            tagsReadData.clear();
+            clear();
         }
     }
 
     public void add(final TagReadData tagReadData) {
-        for (int i = 0; i < tagsReadData.size(); i++) {
-            TagReadData oldTagData = tagsReadData.get(i);
-            if (tagReadData.getEpc().equals(oldTagData.getEpc())) {
+        final Epc epc = tagReadData.getEpc();
+        final int mask = index.length - 1;
+        int slot = epc.hashCode() & mask;
+        while (slotGenerations[slot] == generation) {
+            final int entry = index[slot] - 1;
+            final TagReadData oldTagData = tagsReadData[entry];
+            if (epc.equals(oldTagData.getEpc())) {
                 if (tagReadData.getRssi() > oldTagData.getRssi()) {
-                    tagsReadData.set(i, tagReadData);
+                    oldTagData.copyFrom(tagReadData);
                 }
                 return;
             }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == tagsReadData.length) {
+            grow();
+            add(tagReadData);
+            return;
+        }
+        final int entry = size++;
+        if (tagsReadData[entry] == null) {
+            tagsReadData[entry] = new TagReadData();
+        }
+        tagsReadData[entry].copyFrom(tagReadData);
+        temperatureTags[entry] = tagReadData.isTemperatureTag();
+        index[slot] = entry + 1;
+        slotGenerations[slot] = generation;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return temperature tags of the reading cycle. Iterator is reused, it is valid until the next call.
+     */
+    public TemperatureTagIterator getTemperatureTags() {
+        temperatureTagIterator.reset();
+        return temperatureTagIterator;
+    }
+
+    private void clear() {
+        // Entries are not walked, they are overwritten when reused.
+        size = 0;
+        generation++;
+        if (generation == 0) {
+            // Old stamps could match after overflow.
+            Arrays.fill(slotGenerations, 0);
+            generation = 1;
         }
-        tagsReadData.add(tagReadData);
     }
 
-    public List<TagReadData> getTemperatureTags() {
-        List<TagReadData> tempTags = new ArrayList<>();
-        for (TagReadData tag : tagsReadData) {
-            if (tag.isTemperatureTag()) {
-                tempTags.add(tag);
+    private void grow() {
+        final int capacity = 2 * tagsReadData.length;
+        tagsReadData = Arrays.copyOf(tagsReadData, capacity);
+        temperatureTags = Arrays.copyOf(temperatureTags, capacity);
+
+        index = new int[2 * capacity];
+        slotGenerations = new int[2 * capacity];
+        final int mask = index.length - 1;
+        for (int entry = 0; entry < size; entry++) {
+            int slot = tagsReadData[entry].getEpc().hashCode() & mask;
+            while (slotGenerations[slot] == generation) {
+                slot = (slot + 1) & mask;
             }
+            index[slot] = entry + 1;
+            slotGenerations[slot] = generation;
+        }
+    }
+
+    /**
+     * Iterator over temperature tags of the cache. Also iterable, so it can be used in for-each loop.
+     */
+    public final class TemperatureTagIterator implements Iterator<TagReadData>, Iterable<TagReadData> {
+        private int next;
+
+        /**
+         * Start again from the first temperature tag.
+         */
+        public void reset() {
+            next = 0;
+            skipOtherTags();
+        }
+
+        private void skipOtherTags() {
+            while (next < size && !temperatureTags[next]) {
+                next++;
+            }
+        }
+
+        /**
+         * @return true if no temperature tags are left.
+         */
+        public boolean isEmpty() {
+            return next >= size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public TagReadData next() {
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            final TagReadData result = tagsReadData[next++];
+            skipOtherTags();
+            return result;
+        }
+
+        @Override
+        public Iterator<TagReadData> iterator() {
+            return this;
         }
-        return tempTags;
     }
 }
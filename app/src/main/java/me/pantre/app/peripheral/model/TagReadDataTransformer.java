@@ -0,0 +1,41 @@
+package me.pantre.app.peripheral.model;
+
+import com.thingmagic.TagDataAccess;
+
+import me.pantre.app.model.Epc;
+
+/**
+ * Copy ThingMagic tag reads into pooled {@link TagReadData}.
+ * Called once per tag read on the reader listener thread.
+ */
+public final class TagReadDataTransformer {
+
+    private TagReadDataTransformer() {
+    }
+
+    /**
+     * Copy tag read into result.
+     */
+    public static void transform(final com.thingmagic.TagReadData tagReadData, final TagReadData result) {
+        transform(tagReadData, result, TagReadProjection.ALL);
+    }
+
+    /**
+     * Copy fields of the projection into result, other fields are reset.
+     * Memory data and TID are cloned by ThingMagic getters, skip them when they are not needed.
+     */
+    public static void transform(final com.thingmagic.TagReadData tagReadData, final TagReadData result,
+                                 final TagReadProjection projection) {
+        // EPC is built from tag bytes, hex string is not created.
+        result.setEpc(Epc.of(TagDataAccess.epcBytes(tagReadData.getTag())));
+        result.setAntenna(projection.antenna ? tagReadData.getAntenna() : 0);
+        result.setTime(projection.time ? tagReadData.getTime() : 0);
+        result.setRssi(projection.rssi ? tagReadData.getRssi() : 0);
+        result.setFrequency(projection.frequency ? tagReadData.getFrequency() : 0);
+        result.setPhase(projection.phase ? tagReadData.getPhase() : 0);
+        result.setReadCount(projection.readCount ? tagReadData.getReadCount() : 0);
+        result.setData(projection.data ? tagReadData.getData() : null);
+        result.setTag(projection.tag ? tagReadData.getTag() : null);
+        result.setTIDMemData(projection.tidMemData ? tagReadData.getTIDMemData() : null);
+    }
+}
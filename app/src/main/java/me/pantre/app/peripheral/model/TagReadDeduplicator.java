@@ -0,0 +1,196 @@
+package me.pantre.app.peripheral.model;
+
+import com.thingmagic.TagDataAccess;
+
+import java.util.Arrays;
+
+/**
+ * Fold repeat reads of the same EPC into one slot of the ring buffer, so a shelf produces one record per tag
+ * instead of one per read. A published slot is updated until consumer takes it: max RSSI (with its antenna)
+ * is kept, read counts are summed, phase, frequency and data of the last read are kept.
+ * <p>
+ * EPC bytes are packed into two longs, repeats do not allocate. EPCs longer than 128 bits are not folded.
+ * Entries only point to slots, entries of taken slots are replaced, so the index is cleared by generation.
+ * <p>
+ * Producer side of the ring buffer, called on the reader listener thread.
+ */
+public class TagReadDeduplicator {
+    private static final int PRIMITIVE_BYTES = 2 * Long.BYTES;
+
+    private final TagReadRingBuffer buffer;
+
+    /**
+     * Packed EPC, ring sequence and generation of each slot. Length is a power of two, load is at most 1/2.
+     */
+    private final long[] epcHi;
+    private final long[] epcLo;
+    private final int[] epcLength;
+    private final long[] sequences;
+    private final int[] slotGenerations;
+    private final int mask;
+    private int generation = 1;
+    private int count = 0;
+
+    /**
+     * Reads after window start are not folded into records of the previous window. Written by consumer.
+     */
+    private volatile long windowStart = Long.MIN_VALUE;
+
+    /**
+     * Fields copied from tag reads. Written by consumer.
+     */
+    private volatile TagReadProjection projection = TagReadProjection.INVENTORY;
+
+    /**
+     * Count of reads folded into existing records. Written by producer only.
+     */
+    private volatile long foldedCount = 0;
+
+    public TagReadDeduplicator(final TagReadRingBuffer buffer) {
+        this.buffer = buffer;
+        final int size = 2 * buffer.getCapacity();
+        this.epcHi = new long[size];
+        this.epcLo = new long[size];
+        this.epcLength = new int[size];
+        this.sequences = new long[size];
+        this.slotGenerations = new int[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Producer: fold tag read into the record of its EPC or publish a new record.
+     *
+     * @return false if buffer is full and tag read was dropped.
+     */
+    public boolean add(final com.thingmagic.TagReadData tagReadData) {
+        final byte[] bytes = TagDataAccess.epcBytes(tagReadData.getTag());
+        if (bytes.length > PRIMITIVE_BYTES) {
+            return publish(tagReadData) >= 0;
+        }
+        long hi = 0;
+        long lo = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            final long b = bytes[i] & 0xFFL;
+            if (i < Long.BYTES) {
+                hi |= b << (Byte.SIZE * (Long.BYTES - 1 - i));
+            } else {
+                lo |= b << (Byte.SIZE * (PRIMITIVE_BYTES - 1 - i));
+            }
+        }
+
+        int slot = hash(hi, lo) & mask;
+        while (slotGenerations[slot] == generation) {
+            if (epcHi[slot] == hi && epcLo[slot] == lo && epcLength[slot] == bytes.length) {
+                if (fold(sequences[slot], tagReadData)) {
+                    foldedCount++;
+                    return true;
+                }
+                // Record was taken, the entry is reused by the new one.
+                final long sequence = publish(tagReadData);
+                if (sequence < 0) {
+                    return false;
+                }
+                sequences[slot] = sequence;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        final long sequence = publish(tagReadData);
+        if (sequence < 0) {
+            return false;
+        }
+        if (count == (mask + 1) / 2) {
+            clear();
+            slot = hash(hi, lo) & mask;
+        }
+        epcHi[slot] = hi;
+        epcLo[slot] = lo;
+        epcLength[slot] = bytes.length;
+        sequences[slot] = sequence;
+        slotGenerations[slot] = generation;
+        count++;
+        return true;
+    }
+
+    /**
+     * Consumer: reads after this time start new records.
+     */
+    public void setWindowStart(final long windowStart) {
+        this.windowStart = windowStart;
+    }
+
+    /**
+     * Consumer: copy only fields of the projection from next reads.
+     */
+    public void setProjection(final TagReadProjection projection) {
+        this.projection = projection;
+    }
+
+    public TagReadProjection getProjection() {
+        return projection;
+    }
+
+    public long getFoldedCount() {
+        return foldedCount;
+    }
+
+    private long publish(final com.thingmagic.TagReadData tagReadData) {
+        final TagReadData slot = buffer.claim();
+        if (slot == null) {
+            return -1;
+        }
+        TagReadDataTransformer.transform(tagReadData, slot, projection);
+        return buffer.publish();
+    }
+
+    private boolean fold(final long sequence, final com.thingmagic.TagReadData tagReadData) {
+        final TagReadData record = buffer.beginUpdate(sequence);
+        if (record == null) {
+            return false;
+        }
+        final long start = windowStart;
+        if (record.getTime() < start && tagReadData.getTime() >= start) {
+            buffer.endUpdate(sequence);
+            return false;
+        }
+
+        final TagReadProjection p = projection;
+        final int rssi = tagReadData.getRssi();
+        if (p.rssi && rssi > record.getRssi()) {
+            record.setRssi(rssi);
+            record.setAntenna(p.antenna ? tagReadData.getAntenna() : 0);
+        }
+        if (p.readCount) {
+            record.setReadCount(record.getReadCount() + tagReadData.getReadCount());
+        }
+        if (p.phase) {
+            record.setPhase(tagReadData.getPhase());
+        }
+        if (p.frequency) {
+            record.setFrequency(tagReadData.getFrequency());
+        }
+        // Repeats without memory data keep data of the previous read.
+        final byte[] data = TagDataAccess.data(tagReadData);
+        if (p.data && data.length > 0) {
+            record.setData(data.clone());
+        }
+        buffer.endUpdate(sequence);
+        return true;
+    }
+
+    private void clear() {
+        count = 0;
+        generation++;
+        if (generation == 0) {
+            // Old stamps could match after overflow.
+            Arrays.fill(slotGenerations, 0);
+            generation = 1;
+        }
+    }
+
+    private static int hash(final long hi, final long lo) {
+        final long h = (hi * 31 + lo) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
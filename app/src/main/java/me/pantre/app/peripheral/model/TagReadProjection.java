@@ -0,0 +1,111 @@
+package me.pantre.app.peripheral.model;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Fields of a tag read which consumers need. Other fields are not copied from ThingMagic tag reads,
+ * they keep default values. EPC is always copied.
+ * <p>
+ * Immutable.
+ */
+public final class TagReadProjection {
+
+    public enum Field {
+        ANTENNA,
+        TIME,
+        RSSI,
+        FREQUENCY,
+        PHASE,
+        READ_COUNT,
+        /**
+         * Memory data read by the tag operation of the read plan.
+         */
+        DATA,
+        TID_MEM_DATA,
+        /**
+         * ThingMagic tag data object.
+         */
+        TAG
+    }
+
+    /**
+     * All fields.
+     */
+    public static final TagReadProjection ALL = new TagReadProjection(EnumSet.allOf(Field.class));
+    /**
+     * Fields used by the inventory.
+     */
+    public static final TagReadProjection INVENTORY = new TagReadProjection(EnumSet.of(Field.ANTENNA, Field.TIME,
+            Field.RSSI, Field.FREQUENCY, Field.PHASE, Field.READ_COUNT));
+    /**
+     * Inventory fields and memory data of sensor tags.
+     */
+    public static final TagReadProjection SENSOR = INVENTORY.with(Field.DATA);
+
+    private final Set<Field> fields;
+
+    /**
+     * Flags of the fields, checked for each tag read.
+     */
+    final boolean antenna;
+    final boolean time;
+    final boolean rssi;
+    final boolean frequency;
+    final boolean phase;
+    final boolean readCount;
+    final boolean data;
+    final boolean tidMemData;
+    final boolean tag;
+
+    private TagReadProjection(final EnumSet<Field> fields) {
+        this.fields = Collections.unmodifiableSet(fields);
+        this.antenna = fields.contains(Field.ANTENNA);
+        this.time = fields.contains(Field.TIME);
+        this.rssi = fields.contains(Field.RSSI);
+        this.frequency = fields.contains(Field.FREQUENCY);
+        this.phase = fields.contains(Field.PHASE);
+        this.readCount = fields.contains(Field.READ_COUNT);
+        this.data = fields.contains(Field.DATA);
+        this.tidMemData = fields.contains(Field.TID_MEM_DATA);
+        this.tag = fields.contains(Field.TAG);
+    }
+
+    public static TagReadProjection of(final Field first, final Field... rest) {
+        return new TagReadProjection(EnumSet.of(first, rest));
+    }
+
+    /**
+     * @return projection with the fields of this one and the given fields.
+     */
+    public TagReadProjection with(final Field... added) {
+        final EnumSet<Field> result = EnumSet.noneOf(Field.class);
+        result.addAll(fields);
+        Collections.addAll(result, added);
+        return new TagReadProjection(result);
+    }
+
+    public boolean contains(final Field field) {
+        return fields.contains(field);
+    }
+
+    public Set<Field> getFields() {
+        return fields;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return this == o || (o instanceof TagReadProjection && fields.equals(((TagReadProjection) o).fields));
+    }
+
+    @Override
+    public int hashCode() {
+        return fields.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "TagReadProjection" + fields;
+    }
+}
@@ -0,0 +1,180 @@
+package me.pantre.app.peripheral.model;
+
+import com.thingmagic.ConcurrentObjectPool;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single producer single consumer ring buffer of preallocated tag read slots.
+ * Producer is the reader listener thread, consumer is the driver thread.
+ * <p>
+ * Producer fills a claimed slot and publishes it, consumer takes published slots and puts
+ * objects from the pool instead of them. Slot objects are outstanding in the pool.
+ * <p>
+ * Producer can update a published slot until consumer takes it, see {@link #beginUpdate(long)}.
+ * Slot state is switched by CAS, so consumer never takes a slot in the middle of an update.
+ */
+public class TagReadRingBuffer {
+    /**
+     * Slots, the length is a power of two.
+     */
+    private final TagReadData[] slots;
+    private final int mask;
+    /**
+     * State of each slot: TAKEN, PUBLISHED or UPDATING.
+     */
+    private final AtomicIntegerArray states;
+    /**
+     * Pool to refill slots taken by consumer.
+     */
+    private final ConcurrentObjectPool<TagReadData> pool;
+
+    /**
+     * Sequence of the next slot to take. Written by consumer only.
+     */
+    private final AtomicLong head = new AtomicLong(0);
+    /**
+     * Sequence of the next slot to publish. Written by producer only.
+     */
+    private final AtomicLong tail = new AtomicLong(0);
+
+    /**
+     * Count of tag reads dropped because buffer was full. Written by producer only.
+     */
+    private volatile long overflowCount = 0;
+    /**
+     * Max count of published slots waiting for consumer. Written by producer only.
+     */
+    private volatile int highWaterMark = 0;
+
+    private static final int TAKEN = 0,
+            PUBLISHED = 1,
+            UPDATING = 2;
+
+    public TagReadRingBuffer(final int capacity, final ConcurrentObjectPool<TagReadData> pool) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new TagReadData[size];
+        this.mask = size - 1;
+        this.states = new AtomicIntegerArray(size);
+        this.pool = pool;
+
+        for (int i = 0; i < size; i++) {
+            slots[i] = pool.borrowObject();
+        }
+    }
+
+    /**
+     * Producer: claim next free slot.
+     *
+     * @return slot to fill or null if buffer is full and tag read must be dropped.
+     */
+    public TagReadData claim() {
+        final long t = tail.get();
+        if (t - head.get() >= slots.length) {
+            overflowCount++;
+            return null;
+        }
+        return slots[(int) t & mask];
+    }
+
+    /**
+     * Producer: publish slot returned by the last {@link #claim()}.
+     *
+     * @return sequence of the published slot.
+     */
+    public long publish() {
+        final long sequence = tail.get();
+        states.set((int) sequence & mask, PUBLISHED);
+        final long t = sequence + 1;
+        tail.lazySet(t);
+
+        final int size = (int) (t - head.get());
+        if (size > highWaterMark) {
+            highWaterMark = size;
+        }
+        return sequence;
+    }
+
+    /**
+     * Producer: lock published slot to update it.
+     *
+     * @return slot or null if consumer already took it.
+     */
+    public TagReadData beginUpdate(final long sequence) {
+        // Slot of an old sequence could be reused by a newer one.
+        if (tail.get() - sequence > slots.length) {
+            return null;
+        }
+        final int index = (int) sequence & mask;
+        return states.compareAndSet(index, PUBLISHED, UPDATING) ? slots[index] : null;
+    }
+
+    /**
+     * Producer: unlock slot locked by {@link #beginUpdate(long)}.
+     */
+    public void endUpdate(final long sequence) {
+        states.set((int) sequence & mask, PUBLISHED);
+    }
+
+    /**
+     * Consumer: take all published tag reads.
+     * IMPORTANT: Taken objects are owned by consumer and should be returned to the pool.
+     *
+     * @return count of added tag reads.
+     */
+    public int drainTo(final List<TagReadData> tagReads) {
+        final long h = head.get();
+        final long t = tail.get();
+        for (long i = h; i < t; i++) {
+            final int index = (int) i & mask;
+            take(index);
+            tagReads.add(slots[index]);
+            slots[index] = pool.borrowObject();
+        }
+        head.lazySet(t);
+
+        return (int) (t - h);
+    }
+
+    /**
+     * Consumer: return all published tag reads to the pool.
+     */
+    public void clear() {
+        final long h = head.get();
+        final long t = tail.get();
+        for (long i = h; i < t; i++) {
+            // Passivate slot object through the pool.
+            final int index = (int) i & mask;
+            take(index);
+            pool.returnObject(slots[index]);
+            slots[index] = pool.borrowObject();
+        }
+        head.lazySet(t);
+    }
+
+    /**
+     * Consumer: take published slot, wait if producer is updating it.
+     */
+    private void take(final int index) {
+        while (!states.compareAndSet(index, PUBLISHED, TAKEN)) {
+            Thread.yield();
+        }
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    public long getOverflowCount() {
+        return overflowCount;
+    }
+
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+}
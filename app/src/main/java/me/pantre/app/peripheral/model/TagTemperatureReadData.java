@@ -52,6 +52,13 @@ public class TagTemperatureReadData extends TagReadData {
      * Calculates and returns temperature in decimal degrees.
      */
     public double getTemperature() {
+        return getTemperature(temperatureCode);
+    }
+
+    /**
+     * Calculates temperature of the given temperature code by calibration of this tag.
+     */
+    public double getTemperature(final int temperatureCode) {
         final double divider = 10;
         final double shifter = 800;
 
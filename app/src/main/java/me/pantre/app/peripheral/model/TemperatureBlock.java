@@ -0,0 +1,227 @@
+package me.pantre.app.peripheral.model;
+
+/**
+ * Block of temperature samples compressed as in Gorilla (Facebook time series database): delta-of-delta timestamps
+ * and XOR of the previous value. Values are hundredths of a degree, kept as doubles, so XOR of neighbour values
+ * has few meaningful bits.
+ * <p>
+ * Bits of a sample:
+ * <ul>
+ * <li>timestamp delta of delta (ms): '0' for zero, '10' + 7 bits, '110' + 12 bits, '1110' + 20 bits, '1111' + 32 bits;</li>
+ * <li>value: '0' for the same value, '10' + meaningful bits of XOR in the previous window,
+ * '11' + 5 bits of leading zeros + 6 bits of length - 1 + meaningful bits of XOR.</li>
+ * </ul>
+ * First sample is kept as is. Not thread safe.
+ */
+final class TemperatureBlock {
+    /**
+     * Bits of a sample in the worst case.
+     */
+    private static final int MAX_SAMPLE_BITS = 4 + 32 + 2 + 5 + 6 + 64;
+
+    interface SampleVisitor {
+        void visit(long time, long centidegrees);
+    }
+
+    private final long[] words;
+    private final int capacityBits;
+    private int bitCount;
+    private int count;
+
+    private long firstTime;
+    private long lastTime;
+    private long lastDelta;
+    private long lastValueBits;
+    private int lastLeading;
+    private int lastTrailing;
+
+    TemperatureBlock(final int sizeInBytes) {
+        words = new long[(sizeInBytes + 7) / 8];
+        capacityBits = words.length * 64;
+    }
+
+    void clear() {
+        for (int i = 0; i < (bitCount + 63) / 64; i++) {
+            words[i] = 0;
+        }
+        bitCount = 0;
+        count = 0;
+    }
+
+    /**
+     * @return false if the block is full or the sample is too far from the previous one, it goes to a new block.
+     * Time should not decrease.
+     */
+    boolean add(final long time, final long centidegrees) {
+        final long valueBits = Double.doubleToRawLongBits(centidegrees);
+        if (count == 0) {
+            if (capacityBits < 128) {
+                return false;
+            }
+            writeBits(time, 64);
+            writeBits(valueBits, 64);
+            firstTime = time;
+            lastDelta = 0;
+            lastLeading = -1;
+        } else {
+            final long delta = time - lastTime;
+            final long deltaOfDelta = delta - lastDelta;
+            if (capacityBits - bitCount < MAX_SAMPLE_BITS || deltaOfDelta != (int) deltaOfDelta) {
+                return false;
+            }
+            writeDeltaOfDelta(deltaOfDelta);
+            writeValue(valueBits ^ lastValueBits);
+            lastDelta = delta;
+        }
+        lastTime = time;
+        lastValueBits = valueBits;
+        count++;
+        return true;
+    }
+
+    private void writeDeltaOfDelta(final long deltaOfDelta) {
+        if (deltaOfDelta == 0) {
+            writeBits(0, 1);
+        } else if (fits(deltaOfDelta, 7)) {
+            writeBits(0b10, 2);
+            writeBits(deltaOfDelta, 7);
+        } else if (fits(deltaOfDelta, 12)) {
+            writeBits(0b110, 3);
+            writeBits(deltaOfDelta, 12);
+        } else if (fits(deltaOfDelta, 20)) {
+            writeBits(0b1110, 4);
+            writeBits(deltaOfDelta, 20);
+        } else {
+            writeBits(0b1111, 4);
+            writeBits(deltaOfDelta, 32);
+        }
+    }
+
+    private void writeValue(final long xor) {
+        if (xor == 0) {
+            writeBits(0, 1);
+            return;
+        }
+        final int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        final int trailing = Long.numberOfTrailingZeros(xor);
+        if (lastLeading >= 0 && leading >= lastLeading && trailing >= lastTrailing) {
+            writeBits(0b10, 2);
+            writeBits(xor >>> lastTrailing, 64 - lastLeading - lastTrailing);
+        } else {
+            final int length = 64 - leading - trailing;
+            writeBits(0b11, 2);
+            writeBits(leading, 5);
+            writeBits(length - 1, 6);
+            writeBits(xor >>> trailing, length);
+            lastLeading = leading;
+            lastTrailing = trailing;
+        }
+    }
+
+    /**
+     * Decode samples and visit those from the range (inclusive).
+     */
+    void read(final long from, final long to, final SampleVisitor visitor) {
+        if (count == 0 || from > lastTime || to < firstTime) {
+            return;
+        }
+        final BitReader reader = new BitReader();
+        long time = reader.read(64);
+        long valueBits = reader.read(64);
+        long delta = 0;
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 0; ; i++) {
+            if (time > to) {
+                return;
+            } else if (time >= from) {
+                visitor.visit(time, (long) Double.longBitsToDouble(valueBits));
+            }
+            if (i == count - 1) {
+                return;
+            }
+
+            delta += readDeltaOfDelta(reader);
+            time += delta;
+            if (reader.read(1) != 0) {
+                if (reader.read(1) != 0) {
+                    leading = (int) reader.read(5);
+                    trailing = 64 - leading - ((int) reader.read(6) + 1);
+                }
+                valueBits ^= reader.read(64 - leading - trailing) << trailing;
+            }
+        }
+    }
+
+    private static long readDeltaOfDelta(final BitReader reader) {
+        if (reader.read(1) == 0) {
+            return 0;
+        } else if (reader.read(1) == 0) {
+            return reader.readSigned(7);
+        } else if (reader.read(1) == 0) {
+            return reader.readSigned(12);
+        } else if (reader.read(1) == 0) {
+            return reader.readSigned(20);
+        }
+        return reader.readSigned(32);
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    long getFirstTime() {
+        return firstTime;
+    }
+
+    long getLastTime() {
+        return lastTime;
+    }
+
+    /**
+     * @return bytes used by the samples.
+     */
+    int getUsedBytes() {
+        return (bitCount + 7) / 8;
+    }
+
+    private static boolean fits(final long value, final int bits) {
+        return value >= -(1L << (bits - 1)) && value < (1L << (bits - 1));
+    }
+
+    private void writeBits(final long value, final int bits) {
+        final long masked = bits == 64 ? value : value & ((1L << bits) - 1);
+        final int index = bitCount >>> 6;
+        final int used = bitCount & 63;
+        final int free = 64 - used;
+        if (bits <= free) {
+            words[index] |= masked << (free - bits);
+        } else {
+            words[index] |= masked >>> (bits - free);
+            words[index + 1] |= masked << (64 - (bits - free));
+        }
+        bitCount += bits;
+    }
+
+    private final class BitReader {
+        private int position;
+
+        long read(final int bits) {
+            final int index = position >>> 6;
+            final int used = position & 63;
+            final int free = 64 - used;
+            long value;
+            if (bits <= free) {
+                value = words[index] >>> (free - bits);
+            } else {
+                value = (words[index] << (bits - free)) | (words[index + 1] >>> (64 - (bits - free)));
+            }
+            position += bits;
+            return bits == 64 ? value : value & ((1L << bits) - 1);
+        }
+
+        long readSigned(final int bits) {
+            return read(bits) << (64 - bits) >> (64 - bits);
+        }
+    }
+}
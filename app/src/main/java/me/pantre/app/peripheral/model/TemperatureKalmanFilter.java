@@ -0,0 +1,132 @@
+package me.pantre.app.peripheral.model;
+
+/**
+ * Kalman filter of the temperature of one sensor tag. Temperature is modelled as a random walk. Its process noise
+ * is learned from innovations, so the estimate of a steady tag gets uncertain slowly and of a drifting tag fast.
+ * <p>
+ * Measurements too far from the estimate are rejected as bad codes. If they repeat, temperature has really changed
+ * and the filter starts again from the measurement.
+ * <p>
+ * Temperature is in degrees, variances in squared degrees, process noise in squared degrees per minute.
+ * Not thread safe.
+ */
+public final class TemperatureKalmanFilter {
+    private static final double MINUTE = 60 * 1000.0;
+    /**
+     * Weight of the last innovation in the process noise.
+     */
+    private static final double PROCESS_NOISE_WEIGHT = 0.2;
+
+    private final double measurementVariance;
+    private final double minProcessNoise;
+    private final double maxProcessNoise;
+    private final double outlierSigmas;
+    private final int maxConsecutiveOutliers;
+
+    private boolean initialized = false;
+    private double estimate;
+    private double variance;
+    private double processNoise;
+    private long time;
+    private int consecutiveOutliers = 0;
+
+    public TemperatureKalmanFilter(final double measurementVariance, final double minProcessNoise,
+                                   final double maxProcessNoise, final double outlierSigmas,
+                                   final int maxConsecutiveOutliers) {
+        this.measurementVariance = measurementVariance;
+        this.minProcessNoise = minProcessNoise;
+        this.maxProcessNoise = maxProcessNoise;
+        this.outlierSigmas = outlierSigmas;
+        this.maxConsecutiveOutliers = maxConsecutiveOutliers;
+    }
+
+    /**
+     * Add a measurement.
+     *
+     * @return false if the measurement is rejected as an outlier.
+     */
+    public boolean update(final long now, final double measurement) {
+        if (!initialized) {
+            reset(now, measurement);
+            return true;
+        }
+
+        final double predictedVariance = getVariance(now);
+        final double innovationVariance = predictedVariance + measurementVariance;
+        final double innovation = measurement - estimate;
+        if (Math.abs(getInnovationSigmas(now, measurement)) > outlierSigmas) {
+            if (++consecutiveOutliers <= maxConsecutiveOutliers) {
+                return false;
+            }
+            reset(now, measurement);
+            return true;
+        }
+        consecutiveOutliers = 0;
+
+        // Squared innovation above the expected one is change of temperature since the last update.
+        final double minutes = (now - time) / MINUTE;
+        if (minutes > 0) {
+            final double observedProcessNoise = Math.max(0,
+                    innovation * innovation - measurementVariance - variance) / minutes;
+            processNoise = Math.min(maxProcessNoise, Math.max(minProcessNoise,
+                    PROCESS_NOISE_WEIGHT * observedProcessNoise + (1 - PROCESS_NOISE_WEIGHT) * processNoise));
+        }
+
+        final double gain = predictedVariance / innovationVariance;
+        estimate += gain * innovation;
+        variance = (1 - gain) * predictedVariance;
+        time = Math.max(time, now);
+        return true;
+    }
+
+    /**
+     * Start from the measurement. Process noise is not known yet, so the largest one is assumed.
+     */
+    private void reset(final long now, final double measurement) {
+        initialized = true;
+        estimate = measurement;
+        variance = measurementVariance;
+        processNoise = maxProcessNoise;
+        time = now;
+        consecutiveOutliers = 0;
+    }
+
+    /**
+     * @return difference of the measurement and the estimate in standard deviations of the difference.
+     */
+    public double getInnovationSigmas(final long now, final double measurement) {
+        return initialized ? (measurement - estimate) / Math.sqrt(getVariance(now) + measurementVariance) : 0;
+    }
+
+    /**
+     * @return estimated temperature at the last accepted measurement.
+     */
+    public double getEstimate() {
+        return estimate;
+    }
+
+    /**
+     * @return variance of the estimate predicted for the time.
+     */
+    public double getVariance(final long now) {
+        return variance + processNoise * Math.max(0, now - time) / MINUTE;
+    }
+
+    public double getProcessNoise() {
+        return processNoise;
+    }
+
+    /**
+     * @return time of the last accepted measurement.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * @return true if the last measurement was rejected, it should be confirmed by another one.
+     */
+    public boolean hasPendingOutlier() {
+        return consecutiveOutliers > 0;
+    }
+}
@@ -0,0 +1,70 @@
+package me.pantre.app.peripheral.model;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Minimum, maximum and mean temperature of a sensor tag in a time window.
+ * <p>
+ * Immutable.
+ */
+public final class TemperatureRollup {
+    private final long startTime;
+    private final long duration;
+    private final double min;
+    private final double max;
+    private final double mean;
+    private final int count;
+
+    public TemperatureRollup(final long startTime, final long duration,
+                             final double min, final double max, final double mean, final int count) {
+        this.startTime = startTime;
+        this.duration = duration;
+        this.min = min;
+        this.max = max;
+        this.mean = mean;
+        this.count = count;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * @return duration of the window (in ms).
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * @return count of samples in the window.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "TemperatureRollup={"
+                + "startTime=" + startTime + ','
+                + "duration=" + duration + ','
+                + "min=" + min + ','
+                + "max=" + max + ','
+                + "mean=" + mean + ','
+                + "count=" + count
+                + "}";
+    }
+}
@@ -0,0 +1,35 @@
+package me.pantre.app.peripheral.model;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Temperature of a sensor tag at a time.
+ * <p>
+ * Immutable.
+ */
+public final class TemperatureSample {
+    private final long time;
+    private final double temperature;
+
+    public TemperatureSample(final long time, final double temperature) {
+        this.time = time;
+        this.temperature = temperature;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public double getTemperature() {
+        return temperature;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "TemperatureSample={"
+                + "time=" + time + ','
+                + "temperature=" + temperature
+                + "}";
+    }
+}
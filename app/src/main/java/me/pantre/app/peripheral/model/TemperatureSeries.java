@@ -0,0 +1,292 @@
+package me.pantre.app.peripheral.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Temperature history of one sensor tag in fixed memory. Recent samples are kept compressed in a ring of blocks,
+ * see {@link TemperatureBlock}, the oldest block is replaced when the ring is full. Minute and hour rollups are kept
+ * in rings too, so min/max/mean of older windows are known when their samples are replaced.
+ * <p>
+ * Temperature is kept with 0.01 degree precision. Methods are synchronized, queries do not block adding
+ * to other series.
+ */
+public final class TemperatureSeries {
+    public static final int DEFAULT_BLOCK_SIZE = 512;
+    /**
+     * Count of blocks with samples, 8 KB. About 120 samples fit one block when samples come every few seconds.
+     */
+    public static final int DEFAULT_BLOCKS_COUNT = 16;
+    /**
+     * Count of minute rollups, one day.
+     */
+    public static final int DEFAULT_MINUTE_ROLLUPS = 24 * 60;
+    /**
+     * Count of hour rollups, 180 days of cold-chain history in about 86 KB.
+     */
+    public static final int DEFAULT_HOUR_ROLLUPS = 180 * 24;
+    /**
+     * Rollups keep temperature in hundredths of a degree as short.
+     */
+    public static final double MAX_ABS_TEMPERATURE = 300;
+
+    public enum Resolution {
+        MINUTE(60 * 1000L),
+        HOUR(60 * 60 * 1000L);
+
+        private final long duration;
+
+        Resolution(final long duration) {
+            this.duration = duration;
+        }
+
+        public long getDuration() {
+            return duration;
+        }
+    }
+
+    private final TemperatureBlock[] blocks;
+    private int currentBlock = 0;
+    private final Rollups minuteRollups;
+    private final Rollups hourRollups;
+
+    private boolean hasSamples = false;
+    private long lastTime;
+    private long lastCentidegrees;
+    private int rejectedCount = 0;
+
+    public TemperatureSeries() {
+        this(DEFAULT_BLOCK_SIZE, DEFAULT_BLOCKS_COUNT, DEFAULT_MINUTE_ROLLUPS, DEFAULT_HOUR_ROLLUPS);
+    }
+
+    public TemperatureSeries(final int blockSize, final int blocksCount, final int minuteRollupsCount,
+                             final int hourRollupsCount) {
+        // First sample of a block takes 16 bytes.
+        if (blockSize < 16 || blocksCount <= 0 || minuteRollupsCount <= 0 || hourRollupsCount <= 0) {
+            throw new IllegalArgumentException("Wrong temperature series size");
+        }
+        blocks = new TemperatureBlock[blocksCount];
+        for (int i = 0; i < blocksCount; i++) {
+            blocks[i] = new TemperatureBlock(blockSize);
+        }
+        minuteRollups = new Rollups(Resolution.MINUTE.duration, minuteRollupsCount);
+        hourRollups = new Rollups(Resolution.HOUR.duration, hourRollupsCount);
+    }
+
+    /**
+     * Add a sample. Samples older than the latest one are rejected.
+     *
+     * @return false if the sample is rejected.
+     */
+    public synchronized boolean add(final long time, final double temperature) {
+        if (Double.isNaN(temperature) || Math.abs(temperature) > MAX_ABS_TEMPERATURE
+                || (hasSamples && time < lastTime)) {
+            rejectedCount++;
+            return false;
+        }
+        final long centidegrees = Math.round(temperature * 100);
+        if (!blocks[currentBlock].add(time, centidegrees)) {
+            currentBlock = (currentBlock + 1) % blocks.length;
+            blocks[currentBlock].clear();
+            blocks[currentBlock].add(time, centidegrees);
+        }
+        minuteRollups.add(time, (int) centidegrees);
+        hourRollups.add(time, (int) centidegrees);
+
+        hasSamples = true;
+        lastTime = time;
+        lastCentidegrees = centidegrees;
+        return true;
+    }
+
+    /**
+     * @return the latest sample or null if there are no samples.
+     */
+    public synchronized TemperatureSample getLatest() {
+        return hasSamples ? new TemperatureSample(lastTime, lastCentidegrees / 100.0) : null;
+    }
+
+    /**
+     * @return kept samples in the range (inclusive), oldest first.
+     */
+    public synchronized List<TemperatureSample> getSamples(final long from, final long to) {
+        final List<TemperatureSample> result = new ArrayList<>();
+        for (int i = 1; i <= blocks.length; i++) {
+            blocks[(currentBlock + i) % blocks.length].read(from, to,
+                    (time, centidegrees) -> result.add(new TemperatureSample(time, centidegrees / 100.0)));
+        }
+        return result;
+    }
+
+    /**
+     * @return kept rollups of windows which overlap the range, oldest first. Windows without samples are skipped.
+     */
+    public synchronized List<TemperatureRollup> getRollups(final Resolution resolution, final long from, final long to) {
+        final List<TemperatureRollup> result = new ArrayList<>();
+        rollups(resolution).visit(from, to, (period, accumulator) ->
+                result.add(accumulator.toRollup(period * resolution.duration, resolution.duration)));
+        return result;
+    }
+
+    /**
+     * Min/max/mean of the range (inclusive). Kept samples are used if they cover the range start,
+     * otherwise minute or hour rollups which overlap the range.
+     *
+     * @return summary or null if there are no samples in the range.
+     */
+    public synchronized TemperatureRollup getSummary(final long from, final long to) {
+        final Accumulator accumulator = new Accumulator();
+        if (hasSamples && from >= getOldestSampleTime()) {
+            for (TemperatureBlock block : blocks) {
+                block.read(from, to, accumulator);
+            }
+        } else {
+            final Rollups rollups = from >= minuteRollups.getOldestStartTime() ? minuteRollups : hourRollups;
+            rollups.visit(from, to, (period, rollup) -> accumulator.add(rollup));
+        }
+        return accumulator.count == 0 ? null : accumulator.toRollup(from, to - from + 1);
+    }
+
+    /**
+     * @return time of the oldest kept sample or Long.MAX_VALUE if there are no samples.
+     */
+    public synchronized long getOldestSampleTime() {
+        for (int i = 1; i <= blocks.length; i++) {
+            final TemperatureBlock block = blocks[(currentBlock + i) % blocks.length];
+            if (block.getCount() > 0) {
+                return block.getFirstTime();
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * @return count of kept samples.
+     */
+    public synchronized int getSampleCount() {
+        int count = 0;
+        for (TemperatureBlock block : blocks) {
+            count += block.getCount();
+        }
+        return count;
+    }
+
+    /**
+     * @return bytes used by kept samples.
+     */
+    public synchronized int getCompressedSize() {
+        int size = 0;
+        for (TemperatureBlock block : blocks) {
+            size += block.getUsedBytes();
+        }
+        return size;
+    }
+
+    public synchronized int getRejectedCount() {
+        return rejectedCount;
+    }
+
+    private Rollups rollups(final Resolution resolution) {
+        return resolution == Resolution.MINUTE ? minuteRollups : hourRollups;
+    }
+
+    /**
+     * Min, max and sum of samples in hundredths of a degree.
+     */
+    private static final class Accumulator implements TemperatureBlock.SampleVisitor {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        long sum = 0;
+        int count = 0;
+
+        @Override
+        public void visit(final long time, final long centidegrees) {
+            min = Math.min(min, (int) centidegrees);
+            max = Math.max(max, (int) centidegrees);
+            sum += centidegrees;
+            count++;
+        }
+
+        void add(final Accumulator other) {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            sum += other.sum;
+            count += other.count;
+        }
+
+        TemperatureRollup toRollup(final long startTime, final long duration) {
+            return new TemperatureRollup(startTime, duration, min / 100.0, max / 100.0, sum / 100.0 / count, count);
+        }
+    }
+
+    private interface RollupVisitor {
+        void visit(long period, Accumulator rollup);
+    }
+
+    /**
+     * Ring of rollups of periods. Slot of a period is its number modulo capacity. A slot takes 20 bytes,
+     * period numbers of minutes and hours since epoch fit int.
+     */
+    private static final class Rollups {
+        private final long duration;
+        private final int[] periods;
+        private final short[] mins;
+        private final short[] maxs;
+        private final long[] sums;
+        private final int[] counts;
+        private long lastPeriod = Long.MIN_VALUE;
+        private final Accumulator accumulator = new Accumulator();
+
+        Rollups(final long duration, final int capacity) {
+            this.duration = duration;
+            periods = new int[capacity];
+            mins = new short[capacity];
+            maxs = new short[capacity];
+            sums = new long[capacity];
+            counts = new int[capacity];
+        }
+
+        void add(final long time, final int centidegrees) {
+            final long period = Math.floorDiv(time, duration);
+            final int slot = (int) Math.floorMod(period, (long) periods.length);
+            if (counts[slot] == 0 || periods[slot] != period) {
+                periods[slot] = (int) period;
+                mins[slot] = (short) centidegrees;
+                maxs[slot] = (short) centidegrees;
+                sums[slot] = 0;
+                counts[slot] = 0;
+            }
+            mins[slot] = (short) Math.min(mins[slot], centidegrees);
+            maxs[slot] = (short) Math.max(maxs[slot], centidegrees);
+            sums[slot] += centidegrees;
+            counts[slot]++;
+            lastPeriod = period;
+        }
+
+        long getOldestStartTime() {
+            return lastPeriod == Long.MIN_VALUE ? Long.MAX_VALUE : (lastPeriod - periods.length + 1) * duration;
+        }
+
+        /**
+         * Visit kept rollups of periods which overlap the range. Accumulator is reused between calls.
+         */
+        void visit(final long from, final long to, final RollupVisitor visitor) {
+            if (lastPeriod == Long.MIN_VALUE) {
+                return;
+            }
+            final long first = Math.max(Math.floorDiv(from, duration), lastPeriod - periods.length + 1);
+            final long last = Math.min(Math.floorDiv(to, duration), lastPeriod);
+            for (long period = first; period <= last; period++) {
+                final int slot = (int) Math.floorMod(period, (long) periods.length);
+                if (counts[slot] == 0 || periods[slot] != period) {
+                    continue;
+                }
+                accumulator.min = mins[slot];
+                accumulator.max = maxs[slot];
+                accumulator.sum = sums[slot];
+                accumulator.count = counts[slot];
+                visitor.visit(period, accumulator);
+            }
+        }
+    }
+}
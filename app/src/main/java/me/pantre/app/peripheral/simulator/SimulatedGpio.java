@@ -0,0 +1,60 @@
+package me.pantre.app.peripheral.simulator;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import me.pantre.app.peripheral.GpioBackend;
+import me.pantre.app.peripheral.GpioContstants;
+
+/**
+ * GPIO lines of the mux board. RF switch lines select the shelf of the simulated kiosk.
+ */
+public class SimulatedGpio implements GpioBackend {
+    private final SimulatedKiosk kiosk;
+    private final VirtualClock clock;
+    /**
+     * Time of one GPIO operation in ms.
+     */
+    private final long switchLatency;
+
+    private final Map<Long, Integer> values = new HashMap<>();
+    private long lastSwitchLatency = 0;
+
+    public SimulatedGpio(final SimulatedKiosk kiosk, final VirtualClock clock, final long switchLatency) {
+        this.kiosk = kiosk;
+        this.clock = clock;
+        this.switchLatency = switchLatency;
+    }
+
+    @Override
+    public void setGpioValue(final int chip, final int line, final int value) {
+        setGpioValues(new int[]{chip}, new int[]{line}, new int[]{value});
+    }
+
+    @Override
+    public void setGpioValues(final int[] chips, final int[] lines, final int[] values) {
+        for (int i = 0; i < chips.length; i++) {
+            this.values.put(key(chips[i], lines[i]), values[i]);
+        }
+        clock.sleep(switchLatency);
+        lastSwitchLatency = switchLatency * 1_000_000L;
+
+        // Same encoding as GpioReaderHost: first switch is the high bit.
+        kiosk.setShelf(1 + 2 * getGpioValue(GpioContstants.GPIO_FIFTH_CHIP, GpioContstants.GPIO_RF_SWITCH_ONE)
+                + getGpioValue(GpioContstants.GPIO_SECOND_CHIP, GpioContstants.GPIO_RF_SWITCH_TWO));
+    }
+
+    @Override
+    public long getLastSwitchLatency() {
+        return lastSwitchLatency;
+    }
+
+    public int getGpioValue(final int chip, final int line) {
+        final Integer value = values.get(key(chip, line));
+        return value == null ? 0 : value;
+    }
+
+    private static long key(final int chip, final int line) {
+        return ((long) chip << 32) | line;
+    }
+}
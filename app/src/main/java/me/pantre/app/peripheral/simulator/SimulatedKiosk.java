@@ -0,0 +1,158 @@
+package me.pantre.app.peripheral.simulator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import me.pantre.app.model.Epc;
+
+/**
+ * Tag populations of a simulated kiosk by shelf and chip antenna, and the shelf selected by RF switches.
+ */
+public class SimulatedKiosk {
+    /**
+     * Sensor tags use one of the temperature EPC prefixes.
+     */
+    private static final byte[] PRODUCT_EPC_PREFIX = {(byte) 0xE2, (byte) 0x80, 0x11},
+            SENSOR_EPC_PREFIX = {0, 0, 0, 0};
+    /**
+     * 96 bit EPC.
+     */
+    private static final int EPC_LENGTH = 12;
+
+    private final int shelvesCount;
+    private final int chipAntennasCount;
+    private final Random random;
+
+    /**
+     * Tags by shelf and antenna. Index 0 is not used.
+     */
+    private final List<List<List<SimulatedTag>>> tags = new ArrayList<>();
+    private final Map<Epc, SimulatedTag> tagsByEpc = new HashMap<>();
+
+    private volatile int shelf = 1;
+
+    public SimulatedKiosk(final int shelvesCount, final int chipAntennasCount, final long seed) {
+        this.shelvesCount = shelvesCount;
+        this.chipAntennasCount = chipAntennasCount;
+        this.random = new Random(seed);
+
+        for (int s = 0; s <= shelvesCount; s++) {
+            final List<List<SimulatedTag>> shelfTags = new ArrayList<>();
+            for (int a = 0; a <= chipAntennasCount; a++) {
+                shelfTags.add(new ArrayList<>());
+            }
+            tags.add(shelfTags);
+        }
+    }
+
+    /**
+     * Add count of product tags with random EPCs.
+     */
+    public void populate(final int shelf, final int antenna, final int count,
+                         final double readRate, final double meanRssi, final double rssiSpread) {
+        for (int i = 0; i < count; i++) {
+            addTag(new SimulatedTag(randomEpc(PRODUCT_EPC_PREFIX), shelf, antenna, readRate, meanRssi, rssiSpread));
+        }
+    }
+
+    /**
+     * Add sensor tag with default calibration.
+     */
+    public SimulatedTag addSensorTag(final int shelf, final int antenna, final double readRate,
+                                     final double meanRssi, final double temperature) {
+        final SimulatedTag tag = new SimulatedTag(randomEpc(SENSOR_EPC_PREFIX), shelf, antenna, readRate, meanRssi, 2,
+                temperature, SimulatedTag.DEFAULT_CODE1, SimulatedTag.DEFAULT_TEMP1,
+                SimulatedTag.DEFAULT_CODE2, SimulatedTag.DEFAULT_TEMP2);
+        addTag(tag);
+        return tag;
+    }
+
+    public void addTag(final SimulatedTag tag) {
+        checkPosition(tag.getShelf(), tag.getAntenna());
+        if (tagsByEpc.put(tag.getEpc(), tag) != null) {
+            throw new IllegalArgumentException("Duplicate EPC " + tag.getEpc());
+        }
+        tags.get(tag.getShelf()).get(tag.getAntenna()).add(tag);
+    }
+
+    /**
+     * @return removed tag or null if there is no such tag.
+     */
+    public SimulatedTag removeTag(final Epc epc) {
+        final SimulatedTag tag = tagsByEpc.remove(epc);
+        if (tag != null) {
+            tags.get(tag.getShelf()).get(tag.getAntenna()).remove(tag);
+        }
+        return tag;
+    }
+
+    /**
+     * Move tag to another shelf and antenna.
+     */
+    public void moveTag(final Epc epc, final int shelf, final int antenna) {
+        checkPosition(shelf, antenna);
+        final SimulatedTag tag = tagsByEpc.get(epc);
+        if (tag == null) {
+            return;
+        }
+        tags.get(tag.getShelf()).get(tag.getAntenna()).remove(tag);
+        tag.setShelf(shelf);
+        tag.setAntenna(antenna);
+        tags.get(shelf).get(antenna).add(tag);
+    }
+
+    /**
+     * @return tags seen by the antenna on the shelf. The list should not be modified.
+     */
+    public List<SimulatedTag> getTags(final int shelf, final int antenna) {
+        if (shelf < 1 || shelf > shelvesCount || antenna < 1 || antenna > chipAntennasCount) {
+            return Collections.emptyList();
+        }
+        return tags.get(shelf).get(antenna);
+    }
+
+    public SimulatedTag getTag(final Epc epc) {
+        return tagsByEpc.get(epc);
+    }
+
+    public int getTagsCount() {
+        return tagsByEpc.size();
+    }
+
+    public int getShelf() {
+        return shelf;
+    }
+
+    public void setShelf(final int shelf) {
+        this.shelf = shelf;
+    }
+
+    public int getShelvesCount() {
+        return shelvesCount;
+    }
+
+    public int getChipAntennasCount() {
+        return chipAntennasCount;
+    }
+
+    private Epc randomEpc(final byte[] prefix) {
+        final byte[] bytes = new byte[EPC_LENGTH];
+        Epc epc;
+        do {
+            random.nextBytes(bytes);
+            System.arraycopy(prefix, 0, bytes, 0, prefix.length);
+            epc = Epc.of(bytes);
+        } while (tagsByEpc.containsKey(epc));
+        return epc;
+    }
+
+    private void checkPosition(final int shelf, final int antenna) {
+        if (shelf < 1 || shelf > shelvesCount || antenna < 1 || antenna > chipAntennasCount) {
+            throw new IllegalArgumentException("Wrong position: shelf " + shelf + ", antenna " + antenna);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package me.pantre.app.peripheral.simulator;
+
+import me.pantre.app.model.Epc;
+import me.pantre.app.util.PantryUtils;
+
+/**
+ * Tag placed in the simulated kiosk.
+ */
+public class SimulatedTag {
+    /**
+     * Default calibration points of sensor tags: codes and temperatures as (degrees C) X 10 + 800.
+     */
+    public static final int DEFAULT_CODE1 = 1000,
+            DEFAULT_TEMP1 = 600,
+            DEFAULT_CODE2 = 2800,
+            DEFAULT_TEMP2 = 1400;
+
+    private final Epc epc;
+    private int shelf;
+    private int antenna;
+    /**
+     * Reads per second while the tag is in the field.
+     */
+    private final double readRate;
+    private final double meanRssi;
+    private final double rssiSpread;
+
+    /**
+     * Sensor temperature in degrees C or null if it is not a sensor tag.
+     */
+    private Double temperature;
+    private final int code1;
+    private final int temp1;
+    private final int code2;
+    private final int temp2;
+
+    public SimulatedTag(final Epc epc, final int shelf, final int antenna,
+                        final double readRate, final double meanRssi, final double rssiSpread) {
+        this(epc, shelf, antenna, readRate, meanRssi, rssiSpread, null,
+                DEFAULT_CODE1, DEFAULT_TEMP1, DEFAULT_CODE2, DEFAULT_TEMP2);
+    }
+
+    public SimulatedTag(final Epc epc, final int shelf, final int antenna,
+                        final double readRate, final double meanRssi, final double rssiSpread,
+                        final Double temperature, final int code1, final int temp1, final int code2, final int temp2) {
+        if (readRate <= 0) {
+            throw new IllegalArgumentException("readRate should be positive");
+        }
+        if (code1 == code2 || temp1 == temp2) {
+            throw new IllegalArgumentException("Calibration points should be different");
+        }
+        this.epc = epc;
+        this.shelf = shelf;
+        this.antenna = antenna;
+        this.readRate = readRate;
+        this.meanRssi = meanRssi;
+        this.rssiSpread = rssiSpread;
+        this.temperature = temperature;
+        this.code1 = code1;
+        this.temp1 = temp1;
+        this.code2 = code2;
+        this.temp2 = temp2;
+    }
+
+    public boolean isSensorTag() {
+        return temperature != null;
+    }
+
+    /**
+     * @return temperature code for the given temperature in degrees C, the inverse of the tag calibration.
+     */
+    public int getTemperatureCode(final double temperature) {
+        final double code = code1 + (temperature * 10 + 800 - temp1) * (code2 - code1) / (temp2 - temp1);
+        return Math.max(0, Math.min(0x0FFF, (int) Math.round(code)));
+    }
+
+    /**
+     * @return temperature code word as read from reserved bank.
+     */
+    public byte[] getTemperatureCodeData(final double temperature) {
+        final int code = getTemperatureCode(temperature);
+        return new byte[]{(byte) (code >> 8), (byte) code};
+    }
+
+    /**
+     * @return sensor code words Ch, Dh, Eh as read from reserved bank: moisture code (dry), on-chip RSSI
+     * and temperature code.
+     */
+    public byte[] getSensorCodesData(final double temperature, final int onChipRssi) {
+        final int code = getTemperatureCode(temperature);
+        return new byte[]{0, 0, 0, (byte) onChipRssi, (byte) (code >> 8), (byte) code};
+    }
+
+    /**
+     * @return CRC and 3 calibration words 9h, Ah, Bh as read from user bank.
+     */
+    public byte[] getCalibrationDataWithCRC() {
+        final long value = ((long) code1 << 36) | ((long) temp1 << 25) | ((long) code2 << 13) | ((long) temp2 << 2);
+        final byte[] calibrationData = new byte[6];
+        for (int i = 0; i < calibrationData.length; i++) {
+            calibrationData[i] = (byte) (value >> (Byte.SIZE * (calibrationData.length - i - 1)));
+        }
+
+        // CRC is calculated over reversed calibration data.
+        final byte[] reversedCalibrationData = new byte[calibrationData.length];
+        for (int i = 0; i < calibrationData.length; i++) {
+            reversedCalibrationData[i] = calibrationData[calibrationData.length - i - 1];
+        }
+        final int crc = PantryUtils.crc16(reversedCalibrationData);
+
+        final byte[] result = new byte[2 + calibrationData.length];
+        result[0] = (byte) (crc >> 8);
+        result[1] = (byte) crc;
+        System.arraycopy(calibrationData, 0, result, 2, calibrationData.length);
+        return result;
+    }
+
+    public Epc getEpc() {
+        return epc;
+    }
+
+    public int getShelf() {
+        return shelf;
+    }
+
+    void setShelf(final int shelf) {
+        this.shelf = shelf;
+    }
+
+    public int getAntenna() {
+        return antenna;
+    }
+
+    void setAntenna(final int antenna) {
+        this.antenna = antenna;
+    }
+
+    public double getReadRate() {
+        return readRate;
+    }
+
+    public double getMeanRssi() {
+        return meanRssi;
+    }
+
+    public double getRssiSpread() {
+        return rssiSpread;
+    }
+
+    public Double getTemperature() {
+        return temperature;
+    }
+
+    public void setTemperature(final Double temperature) {
+        this.temperature = temperature;
+    }
+}
@@ -0,0 +1,527 @@
+package me.pantre.app.peripheral.simulator;
+
+import com.thingmagic.ReaderCommException;
+import com.thingmagic.ConcurrentObjectPool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import me.pantre.app.model.Epc;
+import me.pantre.app.model.RfidBand;
+import me.pantre.app.peripheral.ReaderClock;
+import me.pantre.app.peripheral.TagReaderBackend;
+import me.pantre.app.peripheral.model.TagReadData;
+import me.pantre.app.peripheral.model.TagReadProjection;
+
+/**
+ * Reader backend without hardware. Reads tags of the current shelf of {@link SimulatedKiosk} on virtual time.
+ * <p>
+ * Each tag is found after an exponentially distributed time with mean 1 / readRate of RF on time of its antenna,
+ * RF on time of an antenna is split by read plan weights and duty cycle. Commands have latency and fail randomly,
+ * radio temperature follows first order model of RF duty cycle.
+ */
+public class SimulatedTagReader implements TagReaderBackend {
+    /**
+     * US902 channels in kHz.
+     */
+    private static final int MIN_FREQUENCY = 902750,
+            FREQUENCY_STEP = 500,
+            CHANNELS_COUNT = 50;
+    /**
+     * Read power in centi-dBm.
+     */
+    private static final int MAX_READ_POWER = 3000;
+    /**
+     * Phase is reported in degrees 0-180.
+     */
+    private static final int MAX_PHASE = 180;
+    /**
+     * On-chip RSSI of sensor tags, 5 bit code. Sensor codes are valid between 5 and 18.
+     */
+    private static final int ON_CHIP_RSSI_MAX = 31;
+    private static final double ON_CHIP_RSSI_MEAN = 12,
+            ON_CHIP_RSSI_SPREAD = 3;
+
+    /**
+     * Default values. Temperatures are in degrees C, times are in ms.
+     */
+    public static final long DEFAULT_COMMAND_LATENCY = 5,
+            DEFAULT_THERMAL_TIME_CONSTANT = 60000;
+    public static final double DEFAULT_AMBIENT_TEMPERATURE = 30,
+            DEFAULT_TEMPERATURE_RISE = 40,
+            DEFAULT_SENSOR_NOISE = 0.2;
+
+    private final SimulatedKiosk kiosk;
+    private final VirtualClock clock;
+    private final Random random;
+    /**
+     * Pool in debug mode, so runs find leaked and twice returned tag reads.
+     */
+    private final ConcurrentObjectPool<TagReadData> tagReadDataPool = new ConcurrentObjectPool<>(
+            new TagReadData.PooledObjectFactory(), ConcurrentObjectPool.DEFAULT_CAPACITY,
+            ConcurrentObjectPool.DEFAULT_THREAD_CACHE_SIZE, true);
+
+    private long commandLatency = DEFAULT_COMMAND_LATENCY;
+    private double failureRate = 0;
+    private double ambientTemperature = DEFAULT_AMBIENT_TEMPERATURE;
+    /**
+     * Radio temperature rise over ambient at 100% duty cycle.
+     */
+    private double temperatureRise = DEFAULT_TEMPERATURE_RISE;
+    private long thermalTimeConstant = DEFAULT_THERMAL_TIME_CONSTANT;
+    private double sensorNoise = DEFAULT_SENSOR_NOISE;
+
+    private TagReadProjection tagReadProjection = TagReadProjection.INVENTORY;
+
+    private boolean connected = false;
+    private int readPower = MAX_READ_POWER;
+
+    /**
+     * Share of RF on time for each antenna in current read plan.
+     */
+    private double[] antennaShares = new double[0];
+    private double[] continuousAntennaShares = new double[0];
+
+    private boolean reading = false;
+    private boolean continuousReading = false;
+    private double continuousDutyCycle = 1;
+    private long lastPollTime = 0;
+
+    private double radioTemperature;
+    private long thermalTime = 0;
+
+    private long readCommandsCount = 0;
+    private long tagReadsCount = 0;
+    private long failuresCount = 0;
+
+    public SimulatedTagReader(final SimulatedKiosk kiosk, final VirtualClock clock, final long seed) {
+        this.kiosk = kiosk;
+        this.clock = clock;
+        this.random = new Random(seed);
+        this.radioTemperature = ambientTemperature;
+    }
+
+    @Override
+    public boolean connect(final String licenseKey, final RfidBand rfidBand) {
+        clock.sleep(commandLatency);
+        connected = true;
+        thermalTime = clock.currentTimeMillis();
+        return true;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public ReaderClock getClock() {
+        return clock;
+    }
+
+    @Override
+    public void createReadPlans(final int chipAntennasCount) {
+        antennaShares = new double[chipAntennasCount];
+        if (chipAntennasCount > 0) {
+            antennaShares[0] = 1;
+        }
+        continuousAntennaShares = new double[chipAntennasCount];
+        Arrays.fill(continuousAntennaShares, 1.0 / chipAntennasCount);
+    }
+
+    @Override
+    public int getReadPlanCount() {
+        return antennaShares.length;
+    }
+
+    @Override
+    public void paramSetReadPlan(final int readPlanIndex) throws Exception {
+        checkConnected();
+        Arrays.fill(antennaShares, 0);
+        antennaShares[readPlanIndex] = 1;
+    }
+
+    @Override
+    public void paramSetMultiReadPlan(final int[] weights) throws Exception {
+        checkConnected();
+        double sum = 0;
+        for (int weight : weights) {
+            sum += weight;
+        }
+        for (int i = 0; i < antennaShares.length; i++) {
+            antennaShares[i] = i < weights.length && sum > 0 ? weights[i] / sum : 0;
+        }
+    }
+
+    // Link parameters are accepted but not modeled.
+
+    @Override
+    public void paramSetTari(final String value) throws Exception {
+        checkConnected();
+    }
+
+    @Override
+    public void paramSetBlf(final String value) throws Exception {
+        checkConnected();
+    }
+
+    @Override
+    public void paramSetTagEncoding(final String value) throws Exception {
+        checkConnected();
+    }
+
+    @Override
+    public void paramSetQAlgorithm(final String value) throws Exception {
+        checkConnected();
+    }
+
+    @Override
+    public void paramSetSession(final String value) throws Exception {
+        checkConnected();
+    }
+
+    @Override
+    public void paramSetTarget(final String value) throws Exception {
+        checkConnected();
+    }
+
+    @Override
+    public TagReadData[] read(final long duration) throws Exception {
+        final List<TagReadData> tagReads = new ArrayList<>();
+        read(duration, tagReads);
+        return tagReads.toArray(new TagReadData[0]);
+    }
+
+    @Override
+    public void read(final long duration, final List<TagReadData> tagReads) throws Exception {
+        executeCommand();
+        final long start = clock.currentTimeMillis();
+        clock.sleep(duration);
+        updateRadioTemperature(start, start + duration, 1);
+        inventory(start, duration, antennaShares, 1, tagReads);
+    }
+
+    @Override
+    public void startReading() throws Exception {
+        executeCommand();
+        reading = true;
+        lastPollTime = clock.currentTimeMillis();
+    }
+
+    @Override
+    public void pollReads(final List<TagReadData> tagReads) {
+        if (!reading) {
+            return;
+        }
+        final long now = clock.currentTimeMillis();
+        updateRadioTemperature(lastPollTime, now, 1);
+        inventory(lastPollTime, now - lastPollTime, antennaShares, 1, tagReads);
+        lastPollTime = now;
+    }
+
+    @Override
+    public void stopReading(final List<TagReadData> tagReads) {
+        pollReads(tagReads);
+        reading = false;
+    }
+
+    @Override
+    public void startContinuousReading(final long asyncOnTime, final long asyncOffTime) throws Exception {
+        if (continuousReading) {
+            return;
+        }
+        executeCommand();
+        continuousReading = true;
+        continuousDutyCycle = (double) asyncOnTime / (asyncOnTime + asyncOffTime);
+        lastPollTime = clock.currentTimeMillis();
+    }
+
+    @Override
+    public void stopContinuousReading() {
+        if (continuousReading) {
+            updateRadioTemperature(lastPollTime, clock.currentTimeMillis(), continuousDutyCycle);
+            continuousReading = false;
+        }
+    }
+
+    @Override
+    public boolean isContinuousReading() {
+        return continuousReading;
+    }
+
+    @Override
+    public void readWindow(final long duration, final long settleTime, final List<TagReadData> tagReads) throws Exception {
+        final long windowStart = clock.currentTimeMillis() + settleTime;
+        clock.sleep(duration);
+        if (!continuousReading) {
+            return;
+        }
+        final long now = clock.currentTimeMillis();
+        updateRadioTemperature(lastPollTime, now, continuousDutyCycle);
+        inventory(windowStart, now - windowStart, continuousAntennaShares, continuousDutyCycle, tagReads);
+        lastPollTime = now;
+    }
+
+    @Override
+    public TagReadData[] readTemperatureCode(final int antenna, final long readDuration, final TagReadData tagReadData) throws Exception {
+        executeCommand();
+        final long start = clock.currentTimeMillis();
+        clock.sleep(readDuration);
+        updateRadioTemperature(start, start + readDuration, 1);
+
+        // Only sensor tags answer temperature sensor select.
+        final List<TagReadData> tagReads = new ArrayList<>();
+        for (SimulatedTag tag : kiosk.getTags(kiosk.getShelf(), antenna)) {
+            if (tag.isSensorTag()) {
+                final double temperature = tag.getTemperature() + random.nextGaussian() * sensorNoise;
+                readTag(tag, antenna, start, readDuration, readDuration, tag.getTemperatureCodeData(temperature), tagReads);
+            }
+        }
+        return tagReads.toArray(new TagReadData[0]);
+    }
+
+    @Override
+    public TagReadData[] readTemperatureCalibration(final Epc epc, final int antenna, final long readDuration) throws Exception {
+        executeCommand();
+        final long start = clock.currentTimeMillis();
+        clock.sleep(readDuration);
+        updateRadioTemperature(start, start + readDuration, 1);
+
+        final List<TagReadData> tagReads = new ArrayList<>();
+        final SimulatedTag tag = kiosk.getTag(epc);
+        if (tag != null && tag.isSensorTag() && tag.getShelf() == kiosk.getShelf() && tag.getAntenna() == antenna) {
+            readTag(tag, antenna, start, readDuration, readDuration, tag.getCalibrationDataWithCRC(), tagReads);
+        }
+        return tagReads.toArray(new TagReadData[0]);
+    }
+
+    @Override
+    public void readSensorCodes(final int[] antennas, final long readDuration, final List<TagReadData> tagReads) throws Exception {
+        executeCommand();
+        final long start = clock.currentTimeMillis();
+        clock.sleep(readDuration);
+        updateRadioTemperature(start, start + readDuration, 1);
+
+        // Antennas of the plan share RF time, only sensor tags match the select.
+        final double onTime = (double) readDuration / antennas.length;
+        for (int antenna : antennas) {
+            for (SimulatedTag tag : kiosk.getTags(kiosk.getShelf(), antenna)) {
+                if (tag.isSensorTag()) {
+                    final double temperature = tag.getTemperature() + random.nextGaussian() * sensorNoise;
+                    final int onChipRssi = (int) Math.max(0, Math.min(ON_CHIP_RSSI_MAX,
+                            Math.round(ON_CHIP_RSSI_MEAN + random.nextGaussian() * ON_CHIP_RSSI_SPREAD)));
+                    readTag(tag, antenna, start, readDuration, onTime, tag.getSensorCodesData(temperature, onChipRssi),
+                            tagReads);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void readSensorCalibration(final int[] antennas, final long readDuration, final List<TagReadData> tagReads) throws Exception {
+        executeCommand();
+        final long start = clock.currentTimeMillis();
+        clock.sleep(readDuration);
+        updateRadioTemperature(start, start + readDuration, 1);
+
+        final double onTime = (double) readDuration / antennas.length;
+        for (int antenna : antennas) {
+            for (SimulatedTag tag : kiosk.getTags(kiosk.getShelf(), antenna)) {
+                if (tag.isSensorTag()) {
+                    readTag(tag, antenna, start, readDuration, onTime, tag.getCalibrationDataWithCRC(), tagReads);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void returnObject(final TagReadData o) {
+        tagReadDataPool.returnObject(o);
+    }
+
+    @Override
+    public void setTagReadProjection(final TagReadProjection projection) {
+        tagReadProjection = projection;
+    }
+
+    @Override
+    public TagReadProjection getTagReadProjection() {
+        return tagReadProjection;
+    }
+
+    @Override
+    public ConcurrentObjectPool<TagReadData> getTagReadDataPool() {
+        return tagReadDataPool;
+    }
+
+    @Override
+    public Integer getRadioTemperature() {
+        if (!connected) {
+            return null;
+        }
+        clock.sleep(commandLatency);
+        final long now = clock.currentTimeMillis();
+        if (continuousReading) {
+            updateRadioTemperature(lastPollTime, now, continuousDutyCycle);
+            lastPollTime = now;
+        } else {
+            updateRadioTemperature(now, now, 0);
+        }
+        return (int) Math.round(radioTemperature);
+    }
+
+    @Override
+    public Integer getMaxReadPower() {
+        return MAX_READ_POWER;
+    }
+
+    @Override
+    public Integer getReadPower() {
+        return readPower;
+    }
+
+    @Override
+    public void setReadPower(final Integer power) {
+        readPower = Math.max(0, Math.min(MAX_READ_POWER, power));
+    }
+
+    public void setCommandLatency(final long commandLatency) {
+        this.commandLatency = commandLatency;
+    }
+
+    /**
+     * @param failureRate probability that a read command fails with {@link ReaderCommException}.
+     */
+    public void setFailureRate(final double failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    /**
+     * @param temperatureRise radio temperature rise over ambient at 100% duty cycle.
+     */
+    public void setThermalModel(final double ambientTemperature, final double temperatureRise, final long thermalTimeConstant) {
+        this.ambientTemperature = ambientTemperature;
+        this.temperatureRise = temperatureRise;
+        this.thermalTimeConstant = thermalTimeConstant;
+        this.radioTemperature = ambientTemperature;
+    }
+
+    /**
+     * @param sensorNoise standard deviation of sensor tag temperature in degrees C.
+     */
+    public void setSensorNoise(final double sensorNoise) {
+        this.sensorNoise = sensorNoise;
+    }
+
+    public long getReadCommandsCount() {
+        return readCommandsCount;
+    }
+
+    public long getTagReadsCount() {
+        return tagReadsCount;
+    }
+
+    public long getFailuresCount() {
+        return failuresCount;
+    }
+
+    /**
+     * Add reads of current shelf tags during the time window.
+     *
+     * @param shares    share of RF on time for each antenna.
+     * @param dutyCycle share of the window when RF is on.
+     */
+    private void inventory(final long start, final long duration, final double[] shares, final double dutyCycle,
+                           final List<TagReadData> tagReads) {
+        if (duration <= 0) {
+            return;
+        }
+        final int shelf = kiosk.getShelf();
+        for (int i = 0; i < shares.length; i++) {
+            final double onTime = duration * shares[i] * dutyCycle;
+            if (onTime <= 0) {
+                continue;
+            }
+            final int antenna = i + 1;
+            for (SimulatedTag tag : kiosk.getTags(shelf, antenna)) {
+                readTag(tag, antenna, start, duration, onTime, null, tagReads);
+            }
+        }
+    }
+
+    /**
+     * Add read of the tag if it is found during RF on time of its antenna.
+     *
+     * @param onTime RF on time of the antenna during the window.
+     */
+    private void readTag(final SimulatedTag tag, final int antenna, final long start, final long duration,
+                         final double onTime, final byte[] data, final List<TagReadData> tagReads) {
+        final double readInterval = 1000 / tag.getReadRate();
+        final double firstReadTime = -Math.log(1 - random.nextDouble()) * readInterval;
+        if (firstReadTime >= onTime) {
+            return;
+        }
+
+        final TagReadData tagReadData = tagReadDataPool.borrowObject();
+        tagReadData.setEpc(tag.getEpc());
+        tagReadData.setAntenna(antenna);
+        tagReadData.setTime(start + Math.min(duration - 1, (long) (firstReadTime * duration / onTime)));
+        tagReadData.setReadCount(1 + (int) ((onTime - firstReadTime) / readInterval + random.nextDouble()));
+        // Lower read power gives lower RSSI.
+        tagReadData.setRssi((int) Math.round(tag.getMeanRssi() + random.nextGaussian() * tag.getRssiSpread()
+                - (MAX_READ_POWER - readPower) / 100.0));
+        // Random values are drawn for all fields, so the sequence does not depend on the projection.
+        final int phase = random.nextInt(MAX_PHASE);
+        final int frequency = MIN_FREQUENCY + FREQUENCY_STEP * random.nextInt(CHANNELS_COUNT);
+        if (tagReadProjection.contains(TagReadProjection.Field.PHASE)) {
+            tagReadData.setPhase(phase);
+        }
+        if (tagReadProjection.contains(TagReadProjection.Field.FREQUENCY)) {
+            tagReadData.setFrequency(frequency);
+        }
+        // Memory data is read by temperature read plans only.
+        tagReadData.setData(data);
+        tagReads.add(tagReadData);
+        tagReadsCount++;
+    }
+
+    /**
+     * Latency and random failure of a reader command.
+     */
+    private void executeCommand() throws ReaderCommException {
+        checkConnected();
+        readCommandsCount++;
+        clock.sleep(commandLatency);
+        if (failureRate > 0 && random.nextDouble() < failureRate) {
+            failuresCount++;
+            throw new ReaderCommException("Simulated reader command failure");
+        }
+    }
+
+    private void checkConnected() throws ReaderCommException {
+        if (!connected) {
+            throw new ReaderCommException("Simulated reader is not connected");
+        }
+    }
+
+    /**
+     * Radio cools down to ambient temperature before from and heats up by duty cycle from from to to.
+     */
+    private void updateRadioTemperature(final long from, final long to, final double dutyCycle) {
+        if (from > thermalTime) {
+            relaxRadioTemperature(from - thermalTime, ambientTemperature);
+            thermalTime = from;
+        }
+        if (to > thermalTime) {
+            relaxRadioTemperature(to - thermalTime, ambientTemperature + temperatureRise * dutyCycle);
+            thermalTime = to;
+        }
+    }
+
+    private void relaxRadioTemperature(final long duration, final double targetTemperature) {
+        radioTemperature = targetTemperature
+                + (radioTemperature - targetTemperature) * Math.exp(-(double) duration / thermalTimeConstant);
+    }
+}
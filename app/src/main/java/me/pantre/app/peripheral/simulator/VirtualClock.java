@@ -0,0 +1,39 @@
+package me.pantre.app.peripheral.simulator;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import me.pantre.app.peripheral.ReaderClock;
+
+/**
+ * Virtual time for the simulated reader. Sleep advances time immediately.
+ */
+public class VirtualClock implements ReaderClock {
+    private final AtomicLong now;
+
+    public VirtualClock() {
+        this(0);
+    }
+
+    public VirtualClock(final long startTime) {
+        this.now = new AtomicLong(startTime);
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return now.get();
+    }
+
+    @Override
+    public void sleep(final long ms) {
+        advance(ms);
+    }
+
+    /**
+     * Move time forward.
+     */
+    public void advance(final long ms) {
+        if (ms > 0) {
+            now.addAndGet(ms);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.thingmagic;
+
+/**
+ * Create ThingMagic tag reads as the reader does. Fields of {@link TagReadData} are package-private.
+ */
+public final class NativeTagReads {
+
+    private NativeTagReads() {
+    }
+
+    public static TagReadData create(final byte[] epc, final int antenna, final int rssi, final int frequency,
+                                     final int phase, final int readCount, final long time, final byte[] data) {
+        final TagReadData tagReadData = new TagReadData();
+        tagReadData.tag = new TagData(epc);
+        tagReadData.antenna = antenna;
+        tagReadData.rssi = rssi;
+        tagReadData.frequency = frequency;
+        tagReadData.phase = phase;
+        tagReadData.readCount = readCount;
+        tagReadData.readBase = time;
+        tagReadData.readOffset = 0;
+        tagReadData.data = data;
+        tagReadData.dataTidMem = TagReadData.noData;
+        return tagReadData;
+    }
+}
@@ -0,0 +1,47 @@
+package me.pantre.app.benchmark;
+
+import com.thingmagic.ConcurrentObjectPool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import me.pantre.app.peripheral.model.TagReadData;
+
+/**
+ * Borrow and return of pooled tag reads. One op is one borrow and one return.
+ */
+@State(Scope.Benchmark)
+public class ConcurrentObjectPoolBenchmark {
+    @Param({"0", "16"})
+    public int threadCacheSize;
+
+    private ConcurrentObjectPool<TagReadData> pool;
+
+    @Setup
+    public void setup() {
+        pool = new ConcurrentObjectPool<>(new TagReadData.PooledObjectFactory(),
+                ConcurrentObjectPool.DEFAULT_CAPACITY, threadCacheSize, false);
+    }
+
+    @Benchmark
+    public TagReadData borrowReturn() {
+        final TagReadData tagReadData = pool.borrowObject();
+        pool.returnObject(tagReadData);
+        return tagReadData;
+    }
+
+    /**
+     * Radio, merge and listener threads use the pool at the same time.
+     */
+    @Benchmark
+    @Threads(3)
+    public TagReadData borrowReturnShared() {
+        final TagReadData tagReadData = pool.borrowObject();
+        pool.returnObject(tagReadData);
+        return tagReadData;
+    }
+}
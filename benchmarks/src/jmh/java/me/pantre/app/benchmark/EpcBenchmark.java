@@ -0,0 +1,105 @@
+package me.pantre.app.benchmark;
+
+import com.thingmagic.TagDataAccess;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import me.pantre.app.model.Epc;
+
+/**
+ * Binary EPC against hex string EPC. One op is one pass over the population.
+ */
+@State(Scope.Thread)
+public class EpcBenchmark {
+    private static final Epc TEMPERATURE_EPC_PREFIX = Epc.fromHex("00000000");
+
+    @Param({"100", "1000", "10000"})
+    public int tagsCount;
+
+    private com.thingmagic.TagReadData[] nativeTagReads;
+    private Epc[] epcs;
+    private String[] hexEpcs;
+    private final Map<Epc, Integer> epcMap = new HashMap<>();
+    private final Map<String, Integer> hexEpcMap = new HashMap<>();
+
+    @Setup
+    public void setup() {
+        nativeTagReads = TagPopulation.createNativeTagReads(tagsCount);
+        epcs = new Epc[tagsCount];
+        hexEpcs = new String[tagsCount];
+        for (int i = 0; i < tagsCount; i++) {
+            epcs[i] = Epc.of(TagDataAccess.epcBytes(nativeTagReads[i].getTag()));
+            hexEpcs[i] = nativeTagReads[i].epcString();
+            epcMap.put(epcs[i], i);
+            hexEpcMap.put(hexEpcs[i], i);
+        }
+    }
+
+    @Benchmark
+    public Epc[] createEpc() {
+        final Epc[] result = new Epc[tagsCount];
+        for (int i = 0; i < tagsCount; i++) {
+            result[i] = Epc.of(TagDataAccess.epcBytes(nativeTagReads[i].getTag()));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public String[] createHexEpc() {
+        final String[] result = new String[tagsCount];
+        for (int i = 0; i < tagsCount; i++) {
+            result[i] = nativeTagReads[i].epcString();
+        }
+        return result;
+    }
+
+    /**
+     * Lookup with new key objects, as for each tag read.
+     */
+    @Benchmark
+    public int mapGet() {
+        int result = 0;
+        for (int i = 0; i < tagsCount; i++) {
+            result += epcMap.get(Epc.of(TagDataAccess.epcBytes(nativeTagReads[i].getTag())));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int hexMapGet() {
+        int result = 0;
+        for (int i = 0; i < tagsCount; i++) {
+            result += hexEpcMap.get(nativeTagReads[i].epcString());
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int startsWith() {
+        int count = 0;
+        for (int i = 0; i < tagsCount; i++) {
+            if (epcs[i].startsWith(TEMPERATURE_EPC_PREFIX)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int hexStartsWith() {
+        int count = 0;
+        for (int i = 0; i < tagsCount; i++) {
+            if (hexEpcs[i].startsWith("00000000")) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
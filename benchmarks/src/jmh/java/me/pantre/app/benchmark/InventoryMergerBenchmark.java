@@ -0,0 +1,69 @@
+package me.pantre.app.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.PrintStream;
+import java.util.List;
+
+import me.pantre.app.model.InventoryStore;
+import me.pantre.app.peripheral.InventoryMerger;
+import me.pantre.app.peripheral.RoundRobinShelfScheduler;
+import me.pantre.app.peripheral.model.TagReadData;
+import me.pantre.app.peripheral.model.TagReadDataCache;
+
+/**
+ * EPC length check and merge of tag reads into the inventory. One op is one pass over the population.
+ */
+@State(Scope.Thread)
+public class InventoryMergerBenchmark {
+    private static final int CHIP_ANTENNAS_COUNT = 2,
+            REAL_ANTENNAS_COUNT = 8,
+            SHELVES_COUNT = 4,
+            READ_POWER = 3000;
+
+    @Param({"100", "1000", "10000"})
+    public int tagsCount;
+
+    private PrintStream out;
+    private InventoryMerger inventoryMerger;
+    private List<TagReadData> tagReads;
+    private final InventoryStore inventory = new InventoryStore();
+    private long readingCycleNumber = 0;
+
+    @Setup
+    public void setup() {
+        out = TagPopulation.discardOutput();
+        inventoryMerger = new InventoryMerger(CHIP_ANTENNAS_COUNT, REAL_ANTENNAS_COUNT, SHELVES_COUNT,
+                new TagReadDataCache(), new RoundRobinShelfScheduler(SHELVES_COUNT));
+        tagReads = TagPopulation.createTagReads(tagsCount);
+        inventoryMerger.merge(tagReads, 1, ++readingCycleNumber, inventory, -1, READ_POWER);
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(out);
+    }
+
+    /**
+     * First read of each tag in a new reading cycle, every tag row is updated.
+     */
+    @Benchmark
+    public InventoryStore mergeNewCycle() {
+        inventoryMerger.merge(tagReads, 1, ++readingCycleNumber, inventory, -1, READ_POWER);
+        return inventory;
+    }
+
+    /**
+     * Repeated read of each tag in the same reading cycle, tag rows are kept.
+     */
+    @Benchmark
+    public InventoryStore mergeSameCycle() {
+        inventoryMerger.merge(tagReads, 1, readingCycleNumber, inventory, -1, READ_POWER);
+        return inventory;
+    }
+}
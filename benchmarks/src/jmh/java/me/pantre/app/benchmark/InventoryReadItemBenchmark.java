@@ -0,0 +1,39 @@
+package me.pantre.app.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+import me.pantre.app.model.InventoryReadItem;
+import me.pantre.app.peripheral.model.TagReadData;
+
+/**
+ * Inventory item creation through the builder. One op is one pass over the population.
+ */
+@State(Scope.Thread)
+public class InventoryReadItemBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int tagsCount;
+
+    private List<TagReadData> tagReads;
+    private InventoryReadItem[] items;
+
+    @Setup
+    public void setup() {
+        tagReads = TagPopulation.createTagReads(tagsCount);
+        items = new InventoryReadItem[tagsCount];
+    }
+
+    @Benchmark
+    public InventoryReadItem[] create() {
+        for (int i = 0; i < tagsCount; i++) {
+            final TagReadData tagReadData = tagReads.get(i);
+            items[i] = InventoryReadItem.create(tagReadData, tagReadData.getAntenna(), 1, 3000, 0, 1);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,85 @@
+package me.pantre.app.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.PrintStream;
+
+import me.pantre.app.model.RfidBand;
+import me.pantre.app.peripheral.GpioReaderHost;
+import me.pantre.app.peripheral.ThingMagicDriver;
+import me.pantre.app.peripheral.simulator.SimulatedGpio;
+import me.pantre.app.peripheral.simulator.SimulatedKiosk;
+import me.pantre.app.peripheral.simulator.SimulatedTagReader;
+import me.pantre.app.peripheral.simulator.VirtualClock;
+
+/**
+ * Whole read loop of the driver with the simulated kiosk and virtual time, so only CPU time of the driver is
+ * measured. One op is one reading cycle over all shelves.
+ */
+@State(Scope.Thread)
+public class SimulatedCycleBenchmark {
+    private static final int CHIP_ANTENNAS_COUNT = 2,
+            REAL_ANTENNAS_COUNT = 8,
+            SHELVES_COUNT = 4,
+            SENSOR_TAGS_COUNT = 4;
+    private static final long SEED = 1;
+
+    /**
+     * Count of product tags on each antenna of each shelf.
+     */
+    @Param({"50", "250"})
+    public int tagsPerAntenna;
+
+    /**
+     * Tag reads per second next to cycles per second.
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long tagReads;
+    }
+
+    private PrintStream out;
+    private SimulatedTagReader reader;
+    private ThingMagicDriver driver;
+
+    @Setup
+    public void setup() {
+        out = TagPopulation.discardOutput();
+        final VirtualClock clock = new VirtualClock(0);
+        final SimulatedKiosk kiosk = new SimulatedKiosk(SHELVES_COUNT, CHIP_ANTENNAS_COUNT, SEED);
+        for (int shelf = 1; shelf <= SHELVES_COUNT; shelf++) {
+            for (int antenna = 1; antenna <= CHIP_ANTENNAS_COUNT; antenna++) {
+                kiosk.populate(shelf, antenna, tagsPerAntenna, 20, -55, 4);
+            }
+        }
+        for (int i = 0; i < SENSOR_TAGS_COUNT; i++) {
+            kiosk.addSensorTag(1 + i % SHELVES_COUNT, 1, 20, -50, 4.5);
+        }
+
+        reader = new SimulatedTagReader(kiosk, clock, SEED);
+        driver = new ThingMagicDriver(new GpioReaderHost(new SimulatedGpio(kiosk, clock, 1), null), reader,
+                false, CHIP_ANTENNAS_COUNT, REAL_ANTENNAS_COUNT);
+        reader.connect("", RfidBand.US902);
+        driver.setThermalDutyCycle();
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(out);
+    }
+
+    @Benchmark
+    public long readingCycle(final Counters counters) {
+        final long tagReadsCount = reader.getTagReadsCount();
+        driver.runReadingCycles(1);
+        counters.tagReads += reader.getTagReadsCount() - tagReadsCount;
+        return driver.getReadingCycleNumber();
+    }
+}
@@ -0,0 +1,130 @@
+package me.pantre.app.benchmark;
+
+import com.thingmagic.NativeTagReads;
+import com.thingmagic.TagDataAccess;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import me.pantre.app.model.Epc;
+import me.pantre.app.peripheral.model.TagReadData;
+import me.pantre.app.util.PantryUtils;
+
+/**
+ * Reproducible tag populations of a kiosk.
+ */
+final class TagPopulation {
+    private static final long SEED = 42;
+    private static final int EPC_SIZE = 12;
+    /**
+     * One of TEMPERATURE_TAG_INTERVAL tags is a temperature tag.
+     */
+    private static final int TEMPERATURE_TAG_INTERVAL = 100;
+    private static final int CHIP_ANTENNAS_COUNT = 2;
+    private static final int MIN_FREQUENCY = 902750,
+            FREQUENCY_STEP = 500,
+            CHANNELS_COUNT = 50;
+
+    private TagPopulation() {
+    }
+
+    static com.thingmagic.TagReadData[] createNativeTagReads(final int count) {
+        final Random random = new Random(SEED);
+        final com.thingmagic.TagReadData[] result = new com.thingmagic.TagReadData[count];
+        final long time = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            result[i] = NativeTagReads.create(createEpc(random, i), 1 + random.nextInt(CHIP_ANTENNAS_COUNT),
+                    -40 - random.nextInt(40), MIN_FREQUENCY + FREQUENCY_STEP * random.nextInt(CHANNELS_COUNT),
+                    random.nextInt(180), 1 + random.nextInt(10), time + i, new byte[0]);
+        }
+        return result;
+    }
+
+    /**
+     * @return tag reads as they come out of the reader listener.
+     */
+    static List<TagReadData> createTagReads(final int count) {
+        final List<TagReadData> result = new ArrayList<>(count);
+        for (com.thingmagic.TagReadData nativeTagRead : createNativeTagReads(count)) {
+            final TagReadData tagReadData = new TagReadData();
+            tagReadData.setEpc(Epc.of(TagDataAccess.epcBytes(nativeTagRead.getTag())));
+            tagReadData.setAntenna(nativeTagRead.getAntenna());
+            tagReadData.setTime(nativeTagRead.getTime());
+            tagReadData.setRssi(nativeTagRead.getRssi());
+            tagReadData.setFrequency(nativeTagRead.getFrequency());
+            tagReadData.setPhase(nativeTagRead.getPhase());
+            tagReadData.setReadCount(nativeTagRead.getReadCount());
+            result.add(tagReadData);
+        }
+        return result;
+    }
+
+    /**
+     * @return tag reads of sensor tags only.
+     */
+    static List<TagReadData> createSensorTagReads(final int count) {
+        final List<TagReadData> result = createTagReads(count);
+        for (final TagReadData tagReadData : result) {
+            final byte[] epc = tagReadData.getEpc().toBytes();
+            epc[0] = epc[1] = epc[2] = epc[3] = 0;
+            tagReadData.setEpc(Epc.of(epc));
+        }
+        return result;
+    }
+
+    /**
+     * @return CRC and calibration words 9h, Ah, Bh of sensor tags.
+     */
+    static byte[][] createCalibrationData(final int count) {
+        final Random random = new Random(SEED);
+        final byte[][] result = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            final long code1 = 900 + random.nextInt(200);
+            final long temp1 = 550 + random.nextInt(100);
+            final long code2 = 2700 + random.nextInt(200);
+            final long temp2 = 1350 + random.nextInt(100);
+            final long value = (code1 << 36) | (temp1 << 25) | (code2 << 13) | (temp2 << 2);
+
+            final byte[] calibrationData = new byte[6];
+            final byte[] reversedCalibrationData = new byte[6];
+            for (int j = 0; j < calibrationData.length; j++) {
+                calibrationData[j] = (byte) (value >> (Byte.SIZE * (calibrationData.length - j - 1)));
+                reversedCalibrationData[calibrationData.length - j - 1] = calibrationData[j];
+            }
+            final int crc = PantryUtils.crc16(reversedCalibrationData);
+
+            result[i] = new byte[8];
+            result[i][0] = (byte) (crc >> 8);
+            result[i][1] = (byte) crc;
+            System.arraycopy(calibrationData, 0, result[i], 2, calibrationData.length);
+        }
+        return result;
+    }
+
+    /**
+     * Hot path logs to stdout. Keep formatting cost but do not write JMH output full of tag logs.
+     *
+     * @return previous stdout.
+     */
+    static PrintStream discardOutput() {
+        final PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        return out;
+    }
+
+    private static byte[] createEpc(final Random random, final int index) {
+        final byte[] epc = new byte[EPC_SIZE];
+        random.nextBytes(epc);
+        if (index % TEMPERATURE_TAG_INTERVAL == 0) {
+            // Temperature tag prefix 00000000.
+            epc[0] = epc[1] = epc[2] = epc[3] = 0;
+        } else {
+            epc[0] = (byte) 0xE2;
+            epc[1] = (byte) 0x80;
+        }
+        return epc;
+    }
+}
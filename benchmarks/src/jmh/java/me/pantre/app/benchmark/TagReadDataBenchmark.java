@@ -0,0 +1,53 @@
+package me.pantre.app.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+import me.pantre.app.peripheral.model.TagReadData;
+import me.pantre.app.peripheral.model.TagReadDataCache;
+
+/**
+ * Temperature tag detection and temperature tag cache. One op is one pass over the population.
+ */
+@State(Scope.Thread)
+public class TagReadDataBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int tagsCount;
+
+    private List<TagReadData> tagReads;
+    private final TagReadDataCache tagReadDataCache = new TagReadDataCache();
+    private long readingCycleNumber = 0;
+
+    @Setup
+    public void setup() {
+        tagReads = TagPopulation.createTagReads(tagsCount);
+    }
+
+    @Benchmark
+    public int isTemperatureTag() {
+        int count = 0;
+        for (int i = 0; i < tagsCount; i++) {
+            if (tagReads.get(i).isTemperatureTag()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * All tags of the population are added to show how the cache scales with tags count.
+     */
+    @Benchmark
+    public TagReadDataCache tagReadDataCacheAdd() {
+        tagReadDataCache.updateReadingCycle(++readingCycleNumber);
+        for (int i = 0; i < tagsCount; i++) {
+            tagReadDataCache.add(tagReads.get(i));
+        }
+        return tagReadDataCache;
+    }
+}
@@ -0,0 +1,48 @@
+package me.pantre.app.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+
+import me.pantre.app.peripheral.model.TagReadData;
+import me.pantre.app.peripheral.model.TagReadDataCache;
+
+/**
+ * Cache of sensor tag reads. One op is one reading cycle: each sensor tag is read readsPerTag times,
+ * then temperature tags are iterated.
+ */
+@State(Scope.Thread)
+public class TagReadDataCacheBenchmark {
+    @Param({"10", "100", "500"})
+    public int sensorTagsCount;
+
+    @Param({"4"})
+    public int readsPerTag;
+
+    private List<TagReadData> tagReads;
+    private final TagReadDataCache tagReadCache = new TagReadDataCache();
+    private long readingCycleNumber = 0;
+
+    @Setup
+    public void setup() {
+        tagReads = TagPopulation.createSensorTagReads(sensorTagsCount);
+    }
+
+    @Benchmark
+    public void cycle(final Blackhole blackhole) {
+        tagReadCache.updateReadingCycle(++readingCycleNumber);
+        for (int i = 0; i < readsPerTag; i++) {
+            for (final TagReadData tagReadData : tagReads) {
+                tagReadCache.add(tagReadData);
+            }
+        }
+        for (final TagReadData tagReadData : tagReadCache.getTemperatureTags()) {
+            blackhole.consume(tagReadData);
+        }
+    }
+}
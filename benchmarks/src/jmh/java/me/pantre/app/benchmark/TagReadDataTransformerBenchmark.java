@@ -0,0 +1,51 @@
+package me.pantre.app.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import me.pantre.app.peripheral.model.TagReadData;
+import me.pantre.app.peripheral.model.TagReadDataTransformer;
+import me.pantre.app.peripheral.model.TagReadProjection;
+
+/**
+ * Copy of ThingMagic tag reads into pooled tag reads on the listener thread. One op is one pass over the population.
+ */
+@State(Scope.Thread)
+public class TagReadDataTransformerBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int tagsCount;
+
+    private com.thingmagic.TagReadData[] nativeTagReads;
+    private TagReadData[] tagReads;
+
+    @Setup
+    public void setup() {
+        nativeTagReads = TagPopulation.createNativeTagReads(tagsCount);
+        tagReads = new TagReadData[tagsCount];
+        for (int i = 0; i < tagsCount; i++) {
+            tagReads[i] = new TagReadData();
+        }
+    }
+
+    @Benchmark
+    public TagReadData[] transform() {
+        for (int i = 0; i < tagsCount; i++) {
+            TagReadDataTransformer.transform(nativeTagReads[i], tagReads[i]);
+        }
+        return tagReads;
+    }
+
+    /**
+     * Only inventory fields are copied, memory data, TID and tag data are skipped.
+     */
+    @Benchmark
+    public TagReadData[] transformInventory() {
+        for (int i = 0; i < tagsCount; i++) {
+            TagReadDataTransformer.transform(nativeTagReads[i], tagReads[i], TagReadProjection.INVENTORY);
+        }
+        return tagReads;
+    }
+}
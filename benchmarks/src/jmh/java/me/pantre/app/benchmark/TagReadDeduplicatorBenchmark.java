@@ -0,0 +1,83 @@
+package me.pantre.app.benchmark;
+
+import com.thingmagic.ConcurrentObjectPool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import me.pantre.app.peripheral.model.TagReadData;
+import me.pantre.app.peripheral.model.TagReadDataTransformer;
+import me.pantre.app.peripheral.model.TagReadDeduplicator;
+import me.pantre.app.peripheral.model.TagReadRingBuffer;
+
+/**
+ * Read window of a shelf: every tag is read several times, reads go through the ring buffer and are drained.
+ * One op is one window.
+ */
+@State(Scope.Thread)
+public class TagReadDeduplicatorBenchmark {
+    private static final int BUFFER_CAPACITY = 4096;
+
+    @Param({"300"})
+    public int tagsCount;
+
+    @Param({"1", "10"})
+    public int readsPerTag;
+
+    private com.thingmagic.TagReadData[] nativeTagReads;
+    private ConcurrentObjectPool<TagReadData> pool;
+    private TagReadRingBuffer buffer;
+    private TagReadDeduplicator deduplicator;
+    private final List<TagReadData> tagReads = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        nativeTagReads = TagPopulation.createNativeTagReads(tagsCount);
+        pool = new ConcurrentObjectPool<>(new TagReadData.PooledObjectFactory(), BUFFER_CAPACITY,
+                ConcurrentObjectPool.DEFAULT_THREAD_CACHE_SIZE, false);
+        buffer = new TagReadRingBuffer(BUFFER_CAPACITY, pool);
+        deduplicator = new TagReadDeduplicator(buffer);
+    }
+
+    /**
+     * Each read is copied into its own slot.
+     */
+    @Benchmark
+    public int transformEachRead() {
+        for (int round = 0; round < readsPerTag; round++) {
+            for (com.thingmagic.TagReadData nativeTagRead : nativeTagReads) {
+                final TagReadData slot = buffer.claim();
+                if (slot != null) {
+                    TagReadDataTransformer.transform(nativeTagRead, slot);
+                    buffer.publish();
+                }
+            }
+        }
+        return drain();
+    }
+
+    @Benchmark
+    public int deduplicate() {
+        for (int round = 0; round < readsPerTag; round++) {
+            for (com.thingmagic.TagReadData nativeTagRead : nativeTagReads) {
+                deduplicator.add(nativeTagRead);
+            }
+        }
+        return drain();
+    }
+
+    private int drain() {
+        tagReads.clear();
+        final int count = buffer.drainTo(tagReads);
+        for (TagReadData tagReadData : tagReads) {
+            pool.returnObject(tagReadData);
+        }
+        return count;
+    }
+}
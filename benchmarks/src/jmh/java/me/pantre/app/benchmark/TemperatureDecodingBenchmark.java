@@ -0,0 +1,75 @@
+package me.pantre.app.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import me.pantre.app.peripheral.model.TagTemperatureReadData;
+import me.pantre.app.util.PantryUtils;
+
+/**
+ * CRC check and calibration decoding of sensor tags. One op is one pass over the population.
+ */
+@State(Scope.Thread)
+public class TemperatureDecodingBenchmark {
+    private static final byte[] TEMPERATURE_CODE_DATA = {0x06, 0x0D};
+
+    @Param({"100", "1000", "10000"})
+    public int tagsCount;
+
+    private PrintStream out;
+    private byte[][] calibrationData;
+    private byte[][] reversedCalibrationData;
+
+    @Setup
+    public void setup() {
+        out = TagPopulation.discardOutput();
+        calibrationData = TagPopulation.createCalibrationData(tagsCount);
+        reversedCalibrationData = new byte[tagsCount][];
+        for (int i = 0; i < tagsCount; i++) {
+            final byte[] data = Arrays.copyOfRange(calibrationData[i], 2, calibrationData[i].length);
+            for (int j = 0; j < data.length / 2; j++) {
+                final byte tmp = data[j];
+                data[j] = data[data.length - j - 1];
+                data[data.length - j - 1] = tmp;
+            }
+            reversedCalibrationData[i] = data;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(out);
+    }
+
+    @Benchmark
+    public int crc16() {
+        int result = 0;
+        for (int i = 0; i < tagsCount; i++) {
+            result ^= PantryUtils.crc16(reversedCalibrationData[i]);
+        }
+        return result;
+    }
+
+    /**
+     * CRC check, calibration words and temperature code decoding as done for each sensor tag read.
+     */
+    @Benchmark
+    public double decodeTemperature() {
+        double result = 0;
+        for (int i = 0; i < tagsCount; i++) {
+            final TagTemperatureReadData tagTemperatureReadData = new TagTemperatureReadData();
+            if (tagTemperatureReadData.setCalibrationDataWithCRC(calibrationData[i])
+                    && tagTemperatureReadData.setTemperatureCodeData(TEMPERATURE_CODE_DATA)) {
+                result += tagTemperatureReadData.getTemperature();
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,74 @@
+package me.pantre.app.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+
+import me.pantre.app.peripheral.model.TemperatureRollup;
+import me.pantre.app.peripheral.model.TemperatureSample;
+import me.pantre.app.peripheral.model.TemperatureSeries;
+
+/**
+ * Temperature series of a sensor tag read every 10 seconds with jitter. Add op is one sample,
+ * query ops read the last hour.
+ */
+@State(Scope.Thread)
+public class TemperatureSeriesBenchmark {
+    private static final int SAMPLES_COUNT = 4096;
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    private final long[] times = new long[SAMPLES_COUNT];
+    private final double[] temperatures = new double[SAMPLES_COUNT];
+    private TemperatureSeries series;
+    private long timeOffset = 0;
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(1);
+        long time = 0;
+        double temperature = 4;
+        for (int i = 0; i < SAMPLES_COUNT; i++) {
+            time += 10000 + random.nextInt(101) - 50;
+            temperature += (random.nextInt(21) - 10) * 0.01;
+            times[i] = time;
+            temperatures[i] = temperature;
+        }
+        series = new TemperatureSeries();
+        for (int i = 0; i < SAMPLES_COUNT; i++) {
+            add();
+        }
+    }
+
+    @Benchmark
+    public boolean add() {
+        final boolean result = series.add(timeOffset + times[index], temperatures[index]);
+        if (++index == SAMPLES_COUNT) {
+            index = 0;
+            timeOffset += times[SAMPLES_COUNT - 1];
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<TemperatureSample> samplesOfLastHour() {
+        final long to = series.getLatest().getTime();
+        return series.getSamples(to - HOUR, to);
+    }
+
+    @Benchmark
+    public TemperatureRollup summaryOfLastHour() {
+        final long to = series.getLatest().getTime();
+        return series.getSummary(to - HOUR, to);
+    }
+
+    @Benchmark
+    public List<TemperatureRollup> minuteRollupsOfLastHour() {
+        final long to = series.getLatest().getTime();
+        return series.getRollups(TemperatureSeries.Resolution.MINUTE, to - HOUR, to);
+    }
+}
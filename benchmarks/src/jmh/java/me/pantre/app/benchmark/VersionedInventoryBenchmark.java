@@ -0,0 +1,81 @@
+package me.pantre.app.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+import me.pantre.app.model.InventoryStore;
+import me.pantre.app.model.VersionedInventory;
+import me.pantre.app.peripheral.model.TagReadData;
+
+/**
+ * Publish of the inventory of a reading cycle where only a part of tags was read.
+ * One op is one reading cycle.
+ */
+@State(Scope.Thread)
+public class VersionedInventoryBenchmark {
+    private static final int READ_POWER = 3000;
+
+    @Param({"1000", "10000"})
+    public int tagsCount;
+
+    /**
+     * Percent of tags read in a cycle.
+     */
+    @Param({"1", "10", "100"})
+    public int changedPercent;
+
+    private List<TagReadData> tagReads;
+    private int changedCount;
+    private int offset = 0;
+    private long readingCycleNumber = 0;
+
+    private final VersionedInventory versionedInventory = new VersionedInventory();
+    private final InventoryStore inventory = new InventoryStore();
+    private final InventoryStore cycleInventory = new InventoryStore();
+
+    @Setup
+    public void setup() {
+        tagReads = TagPopulation.createTagReads(tagsCount);
+        changedCount = Math.max(1, tagsCount * changedPercent / 100);
+        // Both buffers contain all tags.
+        for (int i = 0; i < 2; i++) {
+            put(versionedInventory.beginUpdate(), tagsCount);
+            versionedInventory.publish();
+        }
+        put(inventory, tagsCount);
+    }
+
+    /**
+     * Copy of the whole inventory each cycle.
+     */
+    @Benchmark
+    public InventoryStore copyCycle() {
+        cycleInventory.copyFrom(inventory);
+        put(cycleInventory, changedCount);
+        inventory.copyFrom(cycleInventory);
+        return inventory;
+    }
+
+    /**
+     * Replay of changed rows and reference swap.
+     */
+    @Benchmark
+    public long versionedCycle() {
+        put(versionedInventory.beginUpdate(), changedCount);
+        return versionedInventory.publish();
+    }
+
+    private void put(final InventoryStore store, final int count) {
+        readingCycleNumber++;
+        for (int i = 0; i < count; i++) {
+            final TagReadData tagReadData = tagReads.get(offset);
+            store.put(tagReadData, tagReadData.getAntenna(), readingCycleNumber, READ_POWER, -1, 1);
+            offset = (offset + 1) % tagReads.size();
+        }
+    }
+}